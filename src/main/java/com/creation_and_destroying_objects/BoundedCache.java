@@ -0,0 +1,939 @@
+package com.creation_and_destroying_objects;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A concurrent cache with a hard bound on total weight, evicting with the W-TinyLFU policy.
+ * Where a WeakHashMap leaves memory use to the GC, this cache keeps the sum of entry weights
+ * (e.g. approximate bytes) under a maximum chosen by the caller.
+ *
+ * Policy (W-TinyLFU):
+ * 1. New entries enter a small LRU admission window (1% of the maximum weight)
+ * 2. Entries leaving the window compete with the main space's LRU victim; a count-min sketch
+ *    of recent access frequency decides which one is kept
+ * 3. The main space is a segmented LRU: probation for entries seen once, protected (80%)
+ *    for entries accessed again while in probation
+ *
+ * Concurrency:
+ * 1. Data lives in a ConcurrentHashMap, so get() is a lock-free hash lookup
+ * 2. Reads record the access in a striped, lossy ring buffer instead of reordering lists
+ * 3. Writes queue their policy change in a write buffer
+ * 4. Buffers are replayed against the policy by whichever thread wins a tryLock, so no
+ *    thread waits on the policy except a writer that finds the write buffer backed up
+ *
+ * Expiry (optional): expire-after-write and expire-after-access deadlines are kept in a
+ * {@link TimingWheel}, which maintenance advances in batches. get() checks the deadline itself,
+ * so an expired entry is never returned even before maintenance removes it. A cleanUp interval
+ * adds a low-priority daemon ticker for caches that can go quiet while holding expired entries.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class BoundedCache<K, V> {
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int READ_BUFFER_STRIPES = ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors());
+    // Pending writes beyond this make writers wait for the policy lock (back-pressure)
+    private static final int WRITE_BUFFER_THRESHOLD = 1024;
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    /**
+     * Computes the weight of an entry, e.g. its approximate size in bytes.
+     */
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final Weigher<? super K, ? super V> weigher;
+    private final BiConsumer<? super K, ? super V> evictionListener;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    // Guarded by evictionLock
+    private final FrequencySketch sketch;
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedDeque = new AccessOrderDeque<>();
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private long windowWeight;
+    private long protectedWeight;
+    private volatile long weightedSize;
+
+    private final ReadBuffer<K, V>[] readBuffers;
+    private final ConcurrentLinkedQueue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder evictionWeight = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    // Zero when the corresponding expiry is disabled
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final Ticker ticker;
+    // Guarded by evictionLock; null when expiry is disabled
+    private final TimingWheel<Node<K, V>> timerWheel;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BoundedCache(Builder<K, V> builder) {
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.evictionListener = builder.evictionListener;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        this.ticker = builder.ticker;
+        this.timerWheel = expires() ? new TimingWheel<>(this.ticker.read()) : null;
+        this.windowMaximum = Math.max(1, this.maximumWeight / 100);
+        this.protectedMaximum = (long) ((this.maximumWeight - this.windowMaximum) * 0.8);
+        this.sketch = new FrequencySketch(builder.expectedEntries);
+        this.readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+        for (int i = 0; i < READ_BUFFER_STRIPES; i++) {
+            this.readBuffers[i] = new ReadBuffer<>();
+        }
+        if (builder.cleanUpIntervalNanos > 0) {
+            PeriodicCleanUp.schedule(this, builder.cleanUpIntervalNanos);
+        }
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Returns the value for the key, or null if it is not cached. Never blocks on the policy.
+     */
+    public V get(K key) {
+        Node<K, V> node = this.data.get(key);
+        if (node == null) {
+            this.misses.increment();
+            return null;
+        }
+        if (expires()) {
+            long now = this.ticker.read();
+            if (hasExpired(node, now)) {
+                // Maintenance removes it; until then it is simply not visible
+                this.misses.increment();
+                tryMaintenance();
+                return null;
+            }
+            if (this.expireAfterAccessNanos > 0) {
+                node.accessTime = now;
+            }
+        }
+        this.hits.increment();
+        if (readBufferFor().offer(node)) {
+            // A full stripe means accesses are being dropped; catch the policy up
+            tryMaintenance();
+        }
+        return node.value;
+    }
+
+    /**
+     * Stores the value, evicting other entries if the cache exceeds its maximum weight.
+     * An entry heavier than the maximum weight is evicted immediately.
+     */
+    public void put(K key, V value) {
+        write(key, value, false);
+    }
+
+    /**
+     * Stores the value only if the key has no live mapping.
+     *
+     * @return the existing value, or null if this value was stored
+     */
+    public V putIfAbsent(K key, V value) {
+        return write(key, value, true);
+    }
+
+    private V write(K key, V value, boolean onlyIfAbsent) {
+        Objects.requireNonNull(value);
+        int weight = this.weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight " + weight + " for key " + key);
+        }
+        long now = expires() ? this.ticker.read() : 0;
+        while (true) {
+            Node<K, V> prior = this.data.get(key);
+            if (prior == null) {
+                Node<K, V> node = new Node<>(key, value, weight);
+                node.writeTime = now;
+                node.accessTime = now;
+                if (this.data.putIfAbsent(key, node) == null) {
+                    afterWrite(() -> onAdd(node));
+                    return null;
+                }
+                continue;
+            }
+            synchronized (prior) {
+                if (prior.removed) {
+                    continue;
+                }
+                if (onlyIfAbsent && !hasExpired(prior, now)) {
+                    return prior.value;
+                }
+                prior.value = value;
+                prior.weight = weight;
+                prior.writeTime = now;
+                prior.accessTime = now;
+            }
+            afterWrite(() -> onUpdate(prior));
+            return null;
+        }
+    }
+
+    public V remove(K key) {
+        Node<K, V> node = this.data.remove(key);
+        if (node == null) {
+            return null;
+        }
+        synchronized (node) {
+            node.removed = true;
+        }
+        afterWrite(() -> onRemove(node));
+        return node.value;
+    }
+
+    /**
+     * @return the number of entries, which may briefly include entries about to be evicted
+     */
+    public long estimatedSize() {
+        return this.data.size();
+    }
+
+    /**
+     * @return the total weight of the entries the policy has seen
+     */
+    public long weightedSize() {
+        return this.weightedSize;
+    }
+
+    public long getMaximumWeight() {
+        return this.maximumWeight;
+    }
+
+    /**
+     * Replays all buffered reads and writes against the policy and evicts down to the bound.
+     */
+    public void cleanUp() {
+        this.evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getHitCount();
+        long requests = hits + getMissCount();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    public long getEvictionWeight() {
+        return this.evictionWeight.sum();
+    }
+
+    public long getExpirationCount() {
+        return this.expirations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedCache{" +
+                "size=" + estimatedSize() +
+                ", weightedSize=" + weightedSize() +
+                ", maximumWeight=" + this.maximumWeight +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                ", expirations=" + getExpirationCount() +
+                '}';
+    }
+
+    private ReadBuffer<K, V> readBufferFor() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return this.readBuffers[(hash >>> 16) & (READ_BUFFER_STRIPES - 1)];
+    }
+
+    private void afterWrite(Runnable task) {
+        this.writeBuffer.add(task);
+        if (this.pendingWrites.incrementAndGet() > WRITE_BUFFER_THRESHOLD) {
+            // Writers are outpacing maintenance: wait for the lock rather than let the cache overflow
+            cleanUp();
+        } else {
+            tryMaintenance();
+        }
+    }
+
+    private void tryMaintenance() {
+        // Re-check after unlocking: a task added while we held the lock would otherwise be stranded
+        do {
+            if (!this.evictionLock.tryLock()) {
+                return;
+            }
+            try {
+                maintenance();
+            } finally {
+                this.evictionLock.unlock();
+            }
+        } while (!this.writeBuffer.isEmpty());
+    }
+
+    // Guarded by evictionLock
+    private void maintenance() {
+        for (ReadBuffer<K, V> buffer : this.readBuffers) {
+            buffer.drainTo(this::onAccess);
+        }
+        Runnable task;
+        while ((task = this.writeBuffer.poll()) != null) {
+            this.pendingWrites.decrementAndGet();
+            task.run();
+        }
+        if (expires()) {
+            long now = this.ticker.read();
+            this.timerWheel.advance(now, node -> expireIfDue(node, now));
+        }
+        evict();
+    }
+
+    private boolean expires() {
+        return this.expireAfterWriteNanos > 0 || this.expireAfterAccessNanos > 0;
+    }
+
+    private boolean hasExpired(Node<K, V> node, long now) {
+        return (this.expireAfterWriteNanos > 0 && now - node.writeTime >= this.expireAfterWriteNanos)
+                || (this.expireAfterAccessNanos > 0 && now - node.accessTime >= this.expireAfterAccessNanos);
+    }
+
+    private long deadline(Node<K, V> node) {
+        long deadline = Long.MAX_VALUE;
+        if (this.expireAfterWriteNanos > 0) {
+            deadline = node.writeTime + this.expireAfterWriteNanos;
+        }
+        if (this.expireAfterAccessNanos > 0) {
+            long accessDeadline = node.accessTime + this.expireAfterAccessNanos;
+            deadline = deadline == Long.MAX_VALUE ? accessDeadline : Math.min(deadline, accessDeadline);
+        }
+        return deadline;
+    }
+
+    // Guarded by evictionLock
+    private void scheduleExpiry(Node<K, V> node) {
+        if (!expires()) {
+            return;
+        }
+        if (node.timer == null) {
+            node.timer = this.timerWheel.schedule(node, deadline(node));
+        } else {
+            this.timerWheel.reschedule(node.timer, deadline(node));
+        }
+    }
+
+    // Guarded by evictionLock
+    private void cancelExpiry(Node<K, V> node) {
+        if (node.timer != null) {
+            this.timerWheel.cancel(node.timer);
+        }
+    }
+
+    private void expireIfDue(Node<K, V> node, long now) {
+        if (!node.isLinked()) {
+            return;
+        }
+        if (!hasExpired(node, now)) {
+            // Accessed or updated since it was scheduled, and that has not been replayed yet
+            this.timerWheel.reschedule(node.timer, deadline(node));
+            return;
+        }
+        unlink(node);
+        synchronized (node) {
+            node.removed = true;
+        }
+        if (this.data.remove(node.key, node)) {
+            this.expirations.increment();
+        }
+    }
+
+    private void onAdd(Node<K, V> node) {
+        if (node.removed) {
+            // Removed before its add reached the policy
+            return;
+        }
+        this.sketch.increment(node.key.hashCode());
+        node.policyWeight = node.weight;
+        node.queue = WINDOW;
+        this.window.addLast(node);
+        this.windowWeight += node.policyWeight;
+        this.weightedSize += node.policyWeight;
+        scheduleExpiry(node);
+    }
+
+    private void onUpdate(Node<K, V> node) {
+        if (!node.isLinked()) {
+            return;
+        }
+        // Reconcile with the latest weight, so reordered or repeated updates are harmless
+        int weightDelta = node.weight - node.policyWeight;
+        node.policyWeight += weightDelta;
+        this.weightedSize += weightDelta;
+        if (node.queue == WINDOW) {
+            this.windowWeight += weightDelta;
+        } else if (node.queue == PROTECTED) {
+            this.protectedWeight += weightDelta;
+        }
+        onAccess(node);
+        scheduleExpiry(node);
+    }
+
+    private void onRemove(Node<K, V> node) {
+        if (node.isLinked()) {
+            unlink(node);
+        }
+        cancelExpiry(node);
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (!node.isLinked()) {
+            return;
+        }
+        this.sketch.increment(node.key.hashCode());
+        if (node.queue == WINDOW) {
+            this.window.moveToLast(node);
+        } else if (node.queue == PROBATION) {
+            // Seen again while on probation: promote, demoting the protected LRU if it overflows
+            this.probation.remove(node);
+            node.queue = PROTECTED;
+            this.protectedDeque.addLast(node);
+            this.protectedWeight += node.policyWeight;
+            while (this.protectedWeight > this.protectedMaximum && this.protectedDeque.peekFirst() != node) {
+                Node<K, V> demoted = this.protectedDeque.pollFirst();
+                this.protectedWeight -= demoted.policyWeight;
+                demoted.queue = PROBATION;
+                this.probation.addLast(demoted);
+            }
+        } else {
+            this.protectedDeque.moveToLast(node);
+        }
+        if (this.expireAfterAccessNanos > 0) {
+            scheduleExpiry(node);
+        }
+    }
+
+    private void evict() {
+        // Move the window's overflow into probation; these are the admission candidates
+        Node<K, V> firstCandidate = null;
+        while (this.windowWeight > this.windowMaximum && this.window.peekFirst() != null) {
+            Node<K, V> node = this.window.pollFirst();
+            this.windowWeight -= node.policyWeight;
+            node.queue = PROBATION;
+            this.probation.addLast(node);
+            if (firstCandidate == null) {
+                firstCandidate = node;
+            }
+        }
+
+        while (this.weightedSize > this.maximumWeight) {
+            Node<K, V> victim = this.probation.peekFirst();
+            Node<K, V> candidate = firstCandidate;
+            if (victim == null) {
+                // Probation is empty: fall back to protected, then to the window
+                victim = this.protectedDeque.peekFirst() != null ? this.protectedDeque.peekFirst() : this.window.peekFirst();
+                if (victim == null) {
+                    return;
+                }
+                evictNode(victim);
+                continue;
+            }
+            if (candidate == null || candidate == victim || !candidate.isLinked() || candidate.queue != PROBATION) {
+                evictNode(victim);
+                if (candidate == victim) {
+                    firstCandidate = null;
+                }
+                continue;
+            }
+            // TinyLFU admission: keep whichever of candidate and victim is used more often
+            Node<K, V> nextCandidate = candidate.next != this.probation.sentinel() ? candidate.next : null;
+            if (admit(candidate, victim)) {
+                evictNode(victim);
+            } else {
+                evictNode(candidate);
+                firstCandidate = nextCandidate;
+            }
+        }
+    }
+
+    private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+        int candidateFrequency = this.sketch.frequency(candidate.key.hashCode());
+        int victimFrequency = this.sketch.frequency(victim.key.hashCode());
+        return candidateFrequency > victimFrequency;
+    }
+
+    private void evictNode(Node<K, V> node) {
+        unlink(node);
+        cancelExpiry(node);
+        synchronized (node) {
+            node.removed = true;
+        }
+        if (this.data.remove(node.key, node)) {
+            this.evictions.increment();
+            this.evictionWeight.add(node.policyWeight);
+            if (this.evictionListener != null) {
+                this.evictionListener.accept(node.key, node.value);
+            }
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.queue == WINDOW) {
+            this.window.remove(node);
+            this.windowWeight -= node.policyWeight;
+        } else if (node.queue == PROBATION) {
+            this.probation.remove(node);
+        } else {
+            this.protectedDeque.remove(node);
+            this.protectedWeight -= node.policyWeight;
+        }
+        this.weightedSize -= node.policyWeight;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(Math.max(1, x) - 1);
+    }
+
+    /**
+     * Builder for {@link BoundedCache}. The maximum weight is required; without a weigher
+     * every entry weighs 1, which bounds the number of entries.
+     */
+    public static class Builder<K, V> {
+        private long maximumWeight = -1;
+        private Weigher<? super K, ? super V> weigher = (key, value) -> 1;
+        private int expectedEntries = 1024;
+        private BiConsumer<? super K, ? super V> evictionListener;
+        private long expireAfterWriteNanos;
+        private long expireAfterAccessNanos;
+        private long cleanUpIntervalNanos;
+        private Ticker ticker = Ticker.system();
+
+        private Builder() {
+        }
+
+        // For wrappers that adjust a caller's configuration without mutating it
+        Builder<K, V> copy() {
+            Builder<K, V> copy = new Builder<>();
+            copy.maximumWeight = this.maximumWeight;
+            copy.weigher = this.weigher;
+            copy.expectedEntries = this.expectedEntries;
+            copy.evictionListener = this.evictionListener;
+            copy.expireAfterWriteNanos = this.expireAfterWriteNanos;
+            copy.expireAfterAccessNanos = this.expireAfterAccessNanos;
+            copy.cleanUpIntervalNanos = this.cleanUpIntervalNanos;
+            copy.ticker = this.ticker;
+            return copy;
+        }
+
+        public Builder<K, V> maximumWeight(long maximumWeight) {
+            if (maximumWeight <= 0) {
+                throw new IllegalArgumentException("maximumWeight must be positive: " + maximumWeight);
+            }
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        public Builder<K, V> weigher(Weigher<? super K, ? super V> weigher) {
+            this.weigher = Objects.requireNonNull(weigher);
+            return this;
+        }
+
+        /**
+         * Sizes the frequency sketch. Defaults to 1024; set it near the number of entries
+         * the cache is expected to hold when weights are not 1.
+         */
+        public Builder<K, V> expectedEntries(int expectedEntries) {
+            if (expectedEntries <= 0) {
+                throw new IllegalArgumentException("expectedEntries must be positive: " + expectedEntries);
+            }
+            this.expectedEntries = expectedEntries;
+            return this;
+        }
+
+        /**
+         * Sets a listener told about every entry evicted by the size policy (not explicit removals).
+         * It runs on the thread doing maintenance while the policy lock is held, so it must be quick.
+         */
+        public Builder<K, V> evictionListener(BiConsumer<? super K, ? super V> evictionListener) {
+            this.evictionListener = Objects.requireNonNull(evictionListener);
+            return this;
+        }
+
+        /**
+         * Expires entries a fixed time after they were created or last updated.
+         */
+        public Builder<K, V> expireAfterWrite(Duration duration) {
+            this.expireAfterWriteNanos = toPositiveNanos(duration);
+            return this;
+        }
+
+        /**
+         * Expires entries a fixed time after they were last read or written.
+         */
+        public Builder<K, V> expireAfterAccess(Duration duration) {
+            this.expireAfterAccessNanos = toPositiveNanos(duration);
+            return this;
+        }
+
+        /**
+         * Sets the time source for expiry; defaults to {@link Ticker#system()}.
+         */
+        public Builder<K, V> ticker(Ticker ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+
+        /**
+         * Runs maintenance, and so expiry, at this interval on a shared low-priority daemon
+         * thread, in addition to the maintenance done on cache operations. The thread holds
+         * the cache weakly and stops for it once the cache is collected.
+         */
+        public Builder<K, V> cleanUpInterval(Duration interval) {
+            this.cleanUpIntervalNanos = toPositiveNanos(interval);
+            return this;
+        }
+
+        private static long toPositiveNanos(Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("duration must be positive: " + duration);
+            }
+            // Keep deadline arithmetic far from overflow; ~73 years is effectively forever
+            return Math.min(duration.toNanos(), Long.MAX_VALUE >> 2);
+        }
+
+        public BoundedCache<K, V> build() {
+            if (this.maximumWeight < 0) {
+                throw new IllegalStateException("maximumWeight is required");
+            }
+            return new BoundedCache<>(this);
+        }
+    }
+
+    /**
+     * A cache entry. Value and weight are written by callers under the node's monitor;
+     * list links and the policy weight belong to the policy and are guarded by the eviction lock.
+     */
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile int weight;
+        boolean removed;
+        // Ticker readings for expiry; written by callers, read by get() and the policy
+        volatile long writeTime;
+        volatile long accessTime;
+
+        // Policy state
+        int policyWeight;
+        byte queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+        TimingWheel.Timer<Node<K, V>> timer;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+
+        boolean isLinked() {
+            return this.prev != null;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked LRU list: head is least recently used, tail most recently used.
+     */
+    private static final class AccessOrderDeque<K, V> {
+        private final Node<K, V> sentinel = new Node<>(null, null, 0);
+
+        AccessOrderDeque() {
+            this.sentinel.prev = this.sentinel;
+            this.sentinel.next = this.sentinel;
+        }
+
+        Node<K, V> sentinel() {
+            return this.sentinel;
+        }
+
+        Node<K, V> peekFirst() {
+            return this.sentinel.next == this.sentinel ? null : this.sentinel.next;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> first = peekFirst();
+            if (first != null) {
+                remove(first);
+            }
+            return first;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = this.sentinel.prev;
+            node.next = this.sentinel;
+            this.sentinel.prev.next = node;
+            this.sentinel.prev = node;
+        }
+
+        void remove(Node<K, V> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (this.sentinel.prev != node) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Periodic maintenance on a shared daemon thread. Holds the cache through a weak reference,
+     * so a forgotten cache is still collected; the task cancels itself when that happens.
+     */
+    private static final class PeriodicCleanUp implements Runnable {
+        private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
+        private final WeakReference<BoundedCache<?, ?>> cache;
+        private volatile Future<?> future;
+
+        private PeriodicCleanUp(BoundedCache<?, ?> cache) {
+            this.cache = new WeakReference<>(cache);
+        }
+
+        static void schedule(BoundedCache<?, ?> cache, long intervalNanos) {
+            PeriodicCleanUp task = new PeriodicCleanUp(cache);
+            task.future = EXECUTOR.scheduleWithFixedDelay(task, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            BoundedCache<?, ?> cache = this.cache.get();
+            if (cache == null) {
+                this.future.cancel(false);
+                return;
+            }
+            // Never wait for the lock: if another thread holds it, maintenance is happening anyway
+            cache.tryMaintenance();
+        }
+
+        private static ScheduledThreadPoolExecutor createExecutor() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "BoundedCache-ticker");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+
+    /**
+     * One stripe of the read buffer: a bounded multi-producer ring drained by the lock holder.
+     * Offers that find the ring full are dropped, which only costs the policy some precision.
+     */
+    private static final class ReadBuffer<K, V> {
+        private final AtomicReferenceArray<Node<K, V>> ring = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCount = new AtomicLong();
+        private final AtomicLong readCount = new AtomicLong();
+
+        /**
+         * @return true if the buffer was full and the caller should trigger a drain
+         */
+        boolean offer(Node<K, V> node) {
+            long head = this.readCount.get();
+            long tail = this.writeCount.get();
+            if (tail - head >= READ_BUFFER_SIZE) {
+                return true;
+            }
+            if (this.writeCount.compareAndSet(tail, tail + 1)) {
+                this.ring.lazySet((int) tail & READ_BUFFER_MASK, node);
+            }
+            return false;
+        }
+
+        void drainTo(Consumer<Node<K, V>> consumer) {
+            long head = this.readCount.get();
+            long tail = this.writeCount.get();
+            for (; head < tail; head++) {
+                int index = (int) head & READ_BUFFER_MASK;
+                Node<K, V> node = this.ring.get(index);
+                if (node == null) {
+                    // Claimed but not yet published; pick it up next time
+                    break;
+                }
+                this.ring.lazySet(index, null);
+                consumer.accept(node);
+            }
+            this.readCount.lazySet(head);
+        }
+    }
+}
+
+/**
+ * Count-min sketch of 4-bit counters used by {@link BoundedCache} to estimate access frequency.
+ * Each long holds sixteen counters; an item maps to four counters in different longs. When the
+ * number of increments reaches ten times the table size, every counter is halved so that the
+ * sketch favours recent popularity. Not thread-safe: only used under the cache's eviction lock.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    FrequencySketch(int expectedEntries) {
+        int length = 1 << -Integer.numberOfLeadingZeros(Math.max(16, Math.min(expectedEntries, 1 << 24)) - 1);
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = 10 * length;
+    }
+
+    int frequency(int itemHash) {
+        int hash = spread(itemHash);
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(int itemHash) {
+        int hash = spread(itemHash);
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++this.size == this.sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((this.table[index] & mask) != mask) {
+            this.table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        for (int i = 0; i < this.table.length; i++) {
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+        this.size /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & this.tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
+
+/**
+ * Example usage of BoundedCache with a weigher bounding the memory used by large string values.
+ */
+class BoundedCacheExample {
+    public static void main(String[] args) {
+        // Roughly 2 bytes per char: cap the cache at about 200 KB of string data
+        BoundedCache<Key, String> cache = BoundedCache.<Key, String>builder()
+                .maximumWeight(200 * 1024)
+                .weigher((key, value) -> 2 * value.length())
+                .expectedEntries(128)
+                .build();
+
+        // A small hot set that is read repeatedly...
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 20; i++) {
+                Key key = new Key("hot-" + i);
+                if (cache.get(key) == null) {
+                    cache.put(key, largeValue(i));
+                }
+            }
+        }
+        // ...survives a scan of one-off keys that alone would exceed the bound many times over
+        for (int i = 0; i < 1000; i++) {
+            cache.put(new Key("scan-" + i), largeValue(i));
+        }
+        cache.cleanUp();
+
+        int hotSurvivors = 0;
+        for (int i = 0; i < 20; i++) {
+            if (cache.get(new Key("hot-" + i)) != null) {
+                hotSurvivors++;
+            }
+        }
+        System.out.println(cache);
+        System.out.println("Hot entries still cached: " + hotSurvivors + " of 20");
+        System.out.println("Hit rate: " + cache.getHitRate());
+    }
+
+    // Same shape as LeakyStack.createLargeObject: ~1000 chars
+    private static String largeValue(int index) {
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'X');
+        return new String(chars) + "-" + index;
+    }
+}
@@ -53,9 +53,16 @@ class ResourceWithCleaner implements AutoCloseable {
     // State class to hold the resources that need cleanup
     private static class State implements Runnable {
         private final String resourceName;
+        // Null unless the leak detector chose to track this resource
+        private final LeakDetector.Tracker tracker;
+        private final long createdNanos;
+        // Set by close() or by closing the scope, so metrics can tell them from the Cleaner
+        private volatile boolean explicitRelease;
         
-        State(String resourceName) {
+        State(String resourceName, LeakDetector.Tracker tracker) {
             this.resourceName = resourceName;
+            this.tracker = tracker;
+            this.createdNanos = ResourceMetrics.created(ResourceWithCleaner.class, resourceName);
             System.out.println("Resource " + resourceName + " initialized");
         }
         
@@ -64,16 +71,39 @@ class ResourceWithCleaner implements AutoCloseable {
             // This is the cleanup action that will be performed
             // either when close() is called or when the object is garbage collected
             System.out.println("Cleaning up resource: " + resourceName);
+            ResourceMetrics.released(ResourceWithCleaner.class, resourceName, createdNanos, explicitRelease);
+            if (tracker != null) {
+                tracker.onCleanup();
+            }
+        }
+        
+        // Scope action: the scope reports whether it is being closed or cleaned by its Cleaner
+        void release(boolean explicit) {
+            if (explicit) {
+                explicitRelease = true;
+            }
+            run();
         }
     }
     
     public ResourceWithCleaner(String name) {
         this.name = name;
-        this.state = new State(name);
+        this.state = new State(name, LeakDetector.track(ResourceWithCleaner.class));
         // Register this object with the cleaner
         this.cleanable = cleaner.register(this, state);
     }
     
+    /**
+     * Creates a resource whose cleanup is owned by a scope instead of the Cleaner.
+     * Avoids a per-object Cleaner registration; the scope's own registration is the safety net.
+     * Leak tracking is left to the scope, since closing the scope is a legitimate way to clean up.
+     */
+    public ResourceWithCleaner(String name, ResourceScope scope) {
+        this.name = name;
+        this.state = new State(name, null);
+        this.cleanable = scope.register(state::release);
+    }
+    
     public String getName() {
         return name;
     }
@@ -86,6 +116,10 @@ class ResourceWithCleaner implements AutoCloseable {
     public void close() {
         // Explicit cleanup through AutoCloseable
         System.out.println("Explicitly closing resource: " + name);
+        state.explicitRelease = true;
+        if (state.tracker != null) {
+            state.tracker.markClosed();
+        }
         cleanable.clean();
     }
     
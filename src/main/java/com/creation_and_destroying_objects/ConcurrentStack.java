@@ -0,0 +1,175 @@
+package com.creation_and_destroying_objects;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free LIFO for many threads, replacing a CorrectedStack wrapped in synchronized.
+ *
+ * Core: a Treiber stack, i.e. a linked list whose head is swapped with compare-and-set.
+ * Under contention most of those CASes fail, and every thread retries on the same cache line.
+ * So a thread whose CAS fails backs off into an elimination array instead:
+ * 1. A pusher parks its node in a random slot and spins briefly
+ * 2. A popper that visits a slot holding a node takes it
+ * 3. The two operations cancel out without ever touching the head; if no partner arrives,
+ *    the pusher withdraws its node and retries on the head
+ *
+ * A push and a pop that meet this way are linearizable: the push is ordered immediately
+ * before the pop. Nodes are never reused, so the CAS on the head has no ABA problem.
+ * Null elements are not permitted.
+ */
+public class ConcurrentStack<T> {
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+    // On one CPU a spinning pusher cannot meet a popper running at the same time
+    private static final boolean ELIMINATION_ENABLED = NCPU > 1;
+    private static final int ELIMINATION_SLOTS = Math.max(1, Math.min(32, NCPU / 2));
+    private static final int ELIMINATION_SPINS = 128;
+
+    private final AtomicReference<Node<T>> head = new AtomicReference<>();
+    private final AtomicReferenceArray<Node<T>> eliminationArray = new AtomicReferenceArray<>(ELIMINATION_SLOTS);
+    private final LongAdder eliminations = new LongAdder();
+
+    private static final class Node<T> {
+        final T value;
+        Node<T> next;
+
+        Node(T value) {
+            this.value = value;
+        }
+    }
+
+    public void push(T e) {
+        Node<T> node = new Node<>(Objects.requireNonNull(e));
+        while (true) {
+            Node<T> top = this.head.get();
+            node.next = top;
+            if (this.head.compareAndSet(top, node)) {
+                return;
+            }
+            if (ELIMINATION_ENABLED && tryEliminatePush(node)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if the stack is empty
+     */
+    public T pop() {
+        T value = poll();
+        if (value == null) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        return value;
+    }
+
+    /**
+     * @return the top element, or null if the stack is empty
+     */
+    public T poll() {
+        while (true) {
+            Node<T> top = this.head.get();
+            if (top == null) {
+                return null;
+            }
+            if (this.head.compareAndSet(top, top.next)) {
+                return top.value;
+            }
+            if (ELIMINATION_ENABLED) {
+                T value = tryEliminatePop();
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the top element without removing it, or null if the stack is empty
+     */
+    public T peek() {
+        Node<T> top = this.head.get();
+        return top == null ? null : top.value;
+    }
+
+    public boolean isEmpty() {
+        return this.head.get() == null;
+    }
+
+    /**
+     * Counts the elements by walking the list: O(n), and only a snapshot under concurrent updates.
+     */
+    public int size() {
+        int count = 0;
+        for (Node<T> node = this.head.get(); node != null; node = node.next) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of push/pop pairs that met in the elimination array
+     */
+    public long getEliminationCount() {
+        return this.eliminations.sum();
+    }
+
+    private boolean tryEliminatePush(Node<T> node) {
+        int slot = ThreadLocalRandom.current().nextInt(ELIMINATION_SLOTS);
+        if (!this.eliminationArray.compareAndSet(slot, null, node)) {
+            return false;
+        }
+        for (int i = 0; i < ELIMINATION_SPINS; i++) {
+            if (this.eliminationArray.get(slot) != node) {
+                // A popper took the node
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        // Withdraw; failing means a popper took it at the last moment
+        return !this.eliminationArray.compareAndSet(slot, node, null);
+    }
+
+    private T tryEliminatePop() {
+        int slot = ThreadLocalRandom.current().nextInt(ELIMINATION_SLOTS);
+        Node<T> node = this.eliminationArray.get(slot);
+        if (node != null && this.eliminationArray.compareAndSet(slot, node, null)) {
+            this.eliminations.increment();
+            return node.value;
+        }
+        return null;
+    }
+}
+
+/**
+ * Example usage of ConcurrentStack: producers and consumers sharing one stack.
+ */
+class ConcurrentStackExample {
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentStack<Integer> stack = new ConcurrentStack<>();
+        int threads = 4;
+        int perThread = 100_000;
+        LongAdder popped = new LongAdder();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    stack.push(i);
+                    if (stack.poll() != null) {
+                        popped.increment();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.println("Pushed " + threads * perThread + ", popped " + popped.sum()
+                + ", left " + stack.size());
+        System.out.println("Eliminated pairs: " + stack.getEliminationCount());
+    }
+}
@@ -0,0 +1,137 @@
+package com.creation_and_destroying_objects;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Scalability benchmark: {@link ConcurrentStack} against a synchronized {@link CorrectedStack}
+ * and {@link ConcurrentLinkedDeque} used as a stack, at 1 to {@value #MAX_THREADS} threads
+ * (doubled each round).
+ *
+ * The workload models work distribution: every thread pushes or pops with equal probability
+ * on a stack prefilled with {@value #PREFILL} elements. Reports total throughput in millions of
+ * operations per second. Rounds with more threads than CPUs measure behaviour under
+ * oversubscription rather than parallel speed-up; the CPU count is printed for context.
+ *
+ * Run with: java -cp target/classes com.creation_and_destroying_objects.ConcurrentStackBenchmark
+ */
+public class ConcurrentStackBenchmark {
+    private static final int MAX_THREADS = 64;
+    private static final int PREFILL = 1000;
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 1000;
+
+    private static volatile long sink;
+
+    /**
+     * The two operations under test, so all stacks run the same loop.
+     */
+    private interface StackUnderTest {
+        void push(Integer value);
+
+        Integer poll();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("CPUs: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-28s %8s %12s%n", "stack", "threads", "Mops/s");
+        for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+            run("synchronized CorrectedStack", threads, () -> {
+                CorrectedStack<Integer> stack = new CorrectedStack<>();
+                return new StackUnderTest() {
+                    @Override
+                    public synchronized void push(Integer value) {
+                        stack.push(value);
+                    }
+
+                    @Override
+                    public synchronized Integer poll() {
+                        return stack.size() == 0 ? null : stack.pop();
+                    }
+                };
+            });
+            run("ConcurrentLinkedDeque", threads, () -> {
+                ConcurrentLinkedDeque<Integer> deque = new ConcurrentLinkedDeque<>();
+                return new StackUnderTest() {
+                    @Override
+                    public void push(Integer value) {
+                        deque.push(value);
+                    }
+
+                    @Override
+                    public Integer poll() {
+                        return deque.pollFirst();
+                    }
+                };
+            });
+            AtomicReference<ConcurrentStack<Integer>> last = new AtomicReference<>();
+            run("ConcurrentStack", threads, () -> {
+                ConcurrentStack<Integer> stack = new ConcurrentStack<>();
+                last.set(stack);
+                return new StackUnderTest() {
+                    @Override
+                    public void push(Integer value) {
+                        stack.push(value);
+                    }
+
+                    @Override
+                    public Integer poll() {
+                        return stack.poll();
+                    }
+                };
+            });
+            System.out.printf("%-28s %8s %12d%n", "  (eliminated pairs)", "", last.get().getEliminationCount());
+        }
+    }
+
+    private static void run(String name, int threads, Supplier<StackUnderTest> factory) throws InterruptedException {
+        StackUnderTest stack = factory.get();
+        for (int i = 0; i < PREFILL; i++) {
+            stack.push(i);
+        }
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Integer value = 42;
+                long measureStart = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+                long measureEnd = measureStart + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+                long count = 0;
+                long accumulator = 0;
+                long now;
+                while ((now = System.nanoTime()) < measureEnd) {
+                    if (random.nextBoolean()) {
+                        stack.push(value);
+                    } else {
+                        Integer popped = stack.poll();
+                        accumulator += popped == null ? 0 : popped;
+                    }
+                    if (now >= measureStart) {
+                        count++;
+                    }
+                }
+                sink = accumulator;
+                operations.add(count);
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double mopsPerSecond = operations.sum() / (MEASURE_MILLIS / 1000.0) / 1_000_000;
+        System.out.printf("%-28s %8d %12.2f%n", name, threads, mopsPerSecond);
+    }
+}
@@ -0,0 +1,216 @@
+package com.creation_and_destroying_objects;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A thread-safe map with weakly referenced keys, for the cases where
+ * {@code Collections.synchronizedMap(new WeakHashMap<>())} serializes every lookup.
+ *
+ * Semantics follow WeakHashMap: keys are compared with equals(), and an entry disappears
+ * once its key is no longer strongly reachable. Differences:
+ * 1. Built on ConcurrentHashMap, so reads never lock and writes only contend per bin
+ * 2. Stale entries are expunged in bounded batches on roughly one write in
+ *    {@value #DRAIN_INTERVAL}, by one thread at a time, not on every operation
+ * 3. Null keys and values are not supported
+ *
+ * Until a batch drain runs, size() may still count entries whose keys were collected;
+ * get() never returns their values because their keys can no longer be looked up.
+ *
+ * @param <K> the type of keys, held weakly
+ * @param <V> the type of values, held strongly
+ */
+public class ConcurrentWeakHashMap<K, V> {
+    private static final int DRAIN_INTERVAL = 64;
+    private static final int DRAIN_BATCH = 256;
+
+    private final ConcurrentHashMap<KeyReference<K>, V> map;
+    private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public ConcurrentWeakHashMap() {
+        this.map = new ConcurrentHashMap<>();
+    }
+
+    public ConcurrentWeakHashMap(int initialCapacity) {
+        this.map = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    public V get(K key) {
+        return this.map.get(new LookupKey<>(key));
+    }
+
+    public boolean containsKey(K key) {
+        return this.map.containsKey(new LookupKey<>(key));
+    }
+
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        maybeDrain();
+        return this.map.put(new WeakKey<>(key, this.queue), value);
+    }
+
+    public V putIfAbsent(K key, V value) {
+        Objects.requireNonNull(value);
+        maybeDrain();
+        return this.map.putIfAbsent(new WeakKey<>(key, this.queue), value);
+    }
+
+    /**
+     * Returns the value for the key, computing and storing it if absent.
+     * As with ConcurrentHashMap, the function runs at most once per absent key.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        maybeDrain();
+        return this.map.computeIfAbsent(new WeakKey<>(key, this.queue), ref -> mappingFunction.apply(key));
+    }
+
+    public V remove(K key) {
+        maybeDrain();
+        return this.map.remove(new LookupKey<>(key));
+    }
+
+    /**
+     * @return the number of entries, possibly including some whose keys were collected since the last drain
+     */
+    public int size() {
+        return this.map.size();
+    }
+
+    public boolean isEmpty() {
+        return this.map.isEmpty();
+    }
+
+    public void clear() {
+        this.map.clear();
+        drainStaleEntries();
+    }
+
+    /**
+     * Applies the action to every entry whose key is still reachable.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        this.map.forEach((ref, value) -> {
+            K key = ref.key();
+            if (key != null) {
+                action.accept(key, value);
+            }
+        });
+    }
+
+    /**
+     * Expunges every entry whose key has been collected. Normally not needed: writes drain in batches.
+     */
+    public void drainStaleEntries() {
+        while (drainBatch() == DRAIN_BATCH) {
+            // Keep going until the queue is empty
+        }
+    }
+
+    private void maybeDrain() {
+        // A random trigger avoids a shared counter, which would itself become a contention point
+        if (ThreadLocalRandom.current().nextInt(DRAIN_INTERVAL) == 0) {
+            drainBatch();
+        }
+    }
+
+    private int drainBatch() {
+        if (!this.draining.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            int drained = 0;
+            Reference<? extends K> ref;
+            while (drained < DRAIN_BATCH && (ref = this.queue.poll()) != null) {
+                // Cleared keys are only equal to themselves, so this removes exactly this entry
+                this.map.remove(ref);
+                drained++;
+            }
+            return drained;
+        } finally {
+            this.draining.set(false);
+        }
+    }
+
+    /**
+     * Common key type, so stored weak keys and temporary lookup keys compare equal
+     * whenever their referents are equal.
+     */
+    private interface KeyReference<K> {
+        K key();
+    }
+
+    private static boolean keysEqual(KeyReference<?> self, int selfHash, Object other) {
+        if (self == other) {
+            return true;
+        }
+        if (!(other instanceof KeyReference) || selfHash != other.hashCode()) {
+            return false;
+        }
+        Object mine = self.key();
+        Object theirs = ((KeyReference<?>) other).key();
+        return mine != null && mine.equals(theirs);
+    }
+
+    private static final class WeakKey<K> extends WeakReference<K> implements KeyReference<K> {
+        // Cached so the entry can still be found (and removed) after the key is cleared
+        private final int hash;
+
+        WeakKey(K key, ReferenceQueue<? super K> queue) {
+            super(Objects.requireNonNull(key), queue);
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public K key() {
+            return get();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return keysEqual(this, this.hash, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    // Short-lived strong key for get/remove, so lookups do not register a reference with the GC
+    private static final class LookupKey<K> implements KeyReference<K> {
+        private final K key;
+        private final int hash;
+
+        LookupKey(K key) {
+            this.key = Objects.requireNonNull(key);
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public K key() {
+            return this.key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return keysEqual(this, this.hash, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.creation_and_destroying_objects;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention benchmark: {@link ConcurrentWeakHashMap} against
+ * {@code Collections.synchronizedMap(new WeakHashMap<>())} at 1 to N threads
+ * (N = available processors, doubled each round).
+ *
+ * The workload models a metadata cache: a fixed pool of strongly held {@link Key}s,
+ * 90% get and 10% put, keys chosen uniformly at random. Reports total throughput
+ * in millions of operations per second.
+ *
+ * Run with: java -cp target/classes com.creation_and_destroying_objects.ConcurrentWeakHashMapBenchmark
+ */
+public class ConcurrentWeakHashMapBenchmark {
+    private static final int KEY_COUNT = 10_000;
+    private static final int READ_PERCENT = 90;
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 1000;
+
+    private static volatile long sink;
+
+    /**
+     * The two operations under test, so both maps run the same loop.
+     */
+    private interface MapUnderTest {
+        String get(Key key);
+
+        void put(Key key, String value);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Key[] keys = new Key[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = new Key("key-" + i);
+        }
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-28s %8s %12s%n", "map", "threads", "Mops/s");
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            Map<Key, String> synchronizedMap = Collections.synchronizedMap(new WeakHashMap<>());
+            run("synchronized WeakHashMap", threads, keys, new MapUnderTest() {
+                @Override
+                public String get(Key key) {
+                    return synchronizedMap.get(key);
+                }
+
+                @Override
+                public void put(Key key, String value) {
+                    synchronizedMap.put(key, value);
+                }
+            });
+
+            ConcurrentWeakHashMap<Key, String> concurrentMap = new ConcurrentWeakHashMap<>();
+            run("ConcurrentWeakHashMap", threads, keys, new MapUnderTest() {
+                @Override
+                public String get(Key key) {
+                    return concurrentMap.get(key);
+                }
+
+                @Override
+                public void put(Key key, String value) {
+                    concurrentMap.put(key, value);
+                }
+            });
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private static void run(String name, int threads, Key[] keys, MapUnderTest map) throws InterruptedException {
+        for (Key key : keys) {
+            map.put(key, key.toString());
+        }
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long measureStart = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+                long measureEnd = measureStart + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+                long count = 0;
+                long accumulator = 0;
+                long now;
+                while ((now = System.nanoTime()) < measureEnd) {
+                    Key key = keys[random.nextInt(keys.length)];
+                    if (random.nextInt(100) < READ_PERCENT) {
+                        String value = map.get(key);
+                        accumulator += value == null ? 0 : value.length();
+                    } else {
+                        map.put(key, "value");
+                    }
+                    if (now >= measureStart) {
+                        count++;
+                    }
+                }
+                sink = accumulator;
+                operations.add(count);
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double mopsPerSecond = operations.sum() / (MEASURE_MILLIS / 1000.0) / 1_000_000;
+        System.out.printf("%-28s %8d %12.2f%n", name, threads, mopsPerSecond);
+    }
+}
@@ -47,7 +47,7 @@ public class FinalizerAttack {
 /**
  * A resource class vulnerable to finalizer attack.
  */
-class Resource {
+class VulnerableResource {
     private boolean destroyed = false;
 
     public void destroy() {
@@ -70,7 +70,7 @@ class Resource {
 /**
  * A malicious subclass that demonstrates the finalizer attack.
  */
-class MaliciousResource extends Resource {
+class MaliciousResource extends VulnerableResource {
     private static MaliciousResource resurrectedInstance;
 
     @Override
@@ -46,6 +46,8 @@ class ResourceWithGuardian {
         protected void finalize() throws Throwable {
             // This finalizer runs before the outer class's finalizer
             // It can ensure proper cleanup of the outer class's resources
+            // Recorded on every run so finalizer activity shows up next to GC events in recordings
+            ResourceMetrics.finalized(ResourceWithGuardian.class);
             if (!ResourceWithGuardian.this.destroyed) {
                 System.out.println("Guardian finalizer running - ensuring cleanup");
                 ResourceWithGuardian.this.destroy();
@@ -0,0 +1,213 @@
+package com.creation_and_destroying_objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures what each cleanup mechanism costs the garbage collector, to back up the advice in
+ * FinalizerAttack, FinalizerGuardian and CleanerWithAutocloseableExample with numbers.
+ *
+ * Scenarios (each allocates as fast as it can on one thread for a fixed window):
+ * 1. finalizer          - VulnerableResource, a class with a finalize() method
+ * 2. finalizer-guardian - ResourceWithGuardian, whose guardian object is finalizable
+ * 3. cleaner-unclosed   - ResourceWithCleaner dropped without close(), so the Cleaner does the work
+ * 4. cleaner-closed     - ResourceWithCleaner closed with try-with-resources
+ * 5. autocloseable      - a plain AutoCloseable closed with try-with-resources, no GC involvement
+ *
+ * Reported per scenario:
+ * - throughput in thousands of objects per second
+ * - allocation rate of the benchmark thread in MB/s
+ * - GC count and accumulated collection time during the window (pause time only, for ZGC)
+ * - reclamation drain: time after the window until every cleanup action has run
+ *   (n/a where cleanup is not observable, 0 where it is synchronous). The backlog left by
+ *   warm-up and earlier scenarios is drained before the window starts, so it is not counted.
+ *
+ * The forked JVM disables the LeakDetector: its allocation stacks and leak reports are not
+ * part of what a Cleaner costs.
+ *
+ * Like JMH, the parent process forks one JVM per collector (G1, Parallel, ZGC) so each
+ * runs with a clean heap. The project has no JMH dependency, so this is a plain main().
+ * The demo classes print on every lifecycle step; stdout is discarded while measuring.
+ *
+ * Run with: java -cp target/classes com.creation_and_destroying_objects.GcImpactBenchmark
+ */
+public class GcImpactBenchmark {
+    private static final String CHILD_FLAG = "--child";
+    private static final List<String> COLLECTORS = Arrays.asList("-XX:+UseG1GC", "-XX:+UseParallelGC", "-XX:+UseZGC");
+    private static final long MEASURE_MILLIS = 2000;
+    private static final long DRAIN_TIMEOUT_MILLIS = 10_000;
+    // Cleanups each counter should eventually reach: every object allocated so far that uses it
+    private static final Map<LongSupplier, Long> issued = new IdentityHashMap<>();
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals(CHILD_FLAG)) {
+            runScenarios();
+            return;
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (String collector : COLLECTORS) {
+            System.out.println("=== " + collector + " ===");
+            List<String> command = new ArrayList<>(Arrays.asList(java, collector, "-Xmx512m",
+                    "-cp", System.getProperty("java.class.path"), GcImpactBenchmark.class.getName(), CHILD_FLAG));
+            int exit = new ProcessBuilder(command).inheritIO().start().waitFor();
+            if (exit != 0) {
+                System.out.println("Skipped: JVM exited with " + exit + " (collector unsupported here?)");
+            }
+        }
+    }
+
+    private static void runScenarios() {
+        PrintStream results = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        LeakDetector.setLevel(LeakDetector.Level.DISABLED);
+        // One supplier for both Cleaner scenarios, since they share the counters
+        LongSupplier cleanerReleases = () -> ResourceMetrics.getClosedCount() + ResourceMetrics.getCleanedCount();
+
+        results.printf("%-20s %12s %10s %8s %12s %12s%n",
+                "scenario", "kops/s", "MB/s", "GCs", "GC ms", "drain ms");
+        run(results, "finalizer", () -> {
+            VulnerableResource resource = new VulnerableResource();
+            return resource.isDestroyed() ? 1 : 0;
+        }, null);
+        run(results, "finalizer-guardian", () -> {
+            ResourceWithGuardian resource = new ResourceWithGuardian();
+            return resource.isDestroyed() ? 1 : 0;
+        }, ResourceMetrics::getFinalizedCount);
+        run(results, "cleaner-unclosed", () -> new ResourceWithCleaner("bench").getName().length(),
+                cleanerReleases);
+        run(results, "cleaner-closed", () -> {
+            try (ResourceWithCleaner resource = new ResourceWithCleaner("bench")) {
+                return resource.getName().length();
+            }
+        }, cleanerReleases);
+        run(results, "autocloseable", () -> {
+            try (PlainCloseable resource = new PlainCloseable()) {
+                return resource.value;
+            }
+        }, () -> PlainCloseable.closed);
+    }
+
+    /**
+     * @param operation allocates one object and returns something derived from it
+     * @param reclaimed cumulative count of cleanups for this kind of object, or null if unobservable
+     */
+    private static void run(PrintStream results, String name, LongSupplier operation, LongSupplier reclaimed) {
+        // Warm-up, then settle the backlog from it and from earlier scenarios
+        long warmUp = timedLoop(operation, 500);
+        System.gc();
+        if (reclaimed != null) {
+            issued.merge(reclaimed, warmUp, Long::sum);
+            drainMillis(reclaimed, issued.get(reclaimed));
+        }
+
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMillis();
+        long allocatedBefore = threadAllocatedBytes();
+
+        long operations = timedLoop(operation, MEASURE_MILLIS);
+
+        long allocatedBytes = threadAllocatedBytes() - allocatedBefore;
+        long gcCount = gcCount() - gcCountBefore;
+        long gcTime = gcTimeMillis() - gcTimeBefore;
+        String drain = "n/a";
+        if (reclaimed != null) {
+            long millis = drainMillis(reclaimed, issued.merge(reclaimed, operations, Long::sum));
+            drain = millis < 0 ? ">" + DRAIN_TIMEOUT_MILLIS : String.valueOf(millis);
+        }
+
+        double seconds = MEASURE_MILLIS / 1000.0;
+        results.printf("%-20s %12.1f %10.1f %8d %12d %12s%n",
+                name, operations / seconds / 1000, allocatedBytes / seconds / (1024 * 1024), gcCount, gcTime, drain);
+    }
+
+    private static long timedLoop(LongSupplier operation, long millis) {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long count = 0;
+        long sink = 0;
+        while (System.nanoTime() < end) {
+            // Batches keep the clock read out of the per-object cost
+            for (int i = 0; i < 100; i++) {
+                sink += operation.getAsLong();
+            }
+            count += 100;
+        }
+        if (sink == Long.MIN_VALUE) {
+            System.err.println(sink);
+        }
+        return count;
+    }
+
+    // Waits until the cleanup count reaches the target, nudging the GC so pending references are found
+    private static long drainMillis(LongSupplier reclaimed, long target) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT_MILLIS);
+        while (reclaimed.getAsLong() < target) {
+            if (System.nanoTime() > deadline) {
+                return -1;
+            }
+            System.gc();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    // ZGC reports concurrent cycles and pauses as separate beans; only its pauses are comparable
+    private static long gcTimeMillis() {
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        boolean pausesOnly = collectors.stream().anyMatch(collector -> collector.getName().contains("Pauses"));
+        long time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            if (!pausesOnly || collector.getName().contains("Pauses")) {
+                time += Math.max(0, collector.getCollectionTime());
+            }
+        }
+        return time;
+    }
+
+    private static long threadAllocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Baseline resource: AutoCloseable with no finalizer and no Cleaner registration.
+     */
+    private static final class PlainCloseable implements AutoCloseable {
+        // Only the benchmark thread closes these, so a plain field is enough
+        static long closed;
+
+        final int value = 1;
+
+        @Override
+        public void close() {
+            closed++;
+        }
+    }
+}
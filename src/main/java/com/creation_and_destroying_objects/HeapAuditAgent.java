@@ -0,0 +1,38 @@
+package com.creation_and_destroying_objects;
+
+import java.lang.instrument.Instrumentation;
+
+/**
+ * java.lang.instrument entry points for {@link HeapAuditor}. With the agent installed the
+ * auditor measures shallow sizes with {@link Instrumentation#getObjectSize(Object)}; without it,
+ * it falls back to estimating object layout from the declared fields.
+ *
+ * Install at startup with the project jar, whose manifest names this class:
+ * {@code java -javaagent:target/java-in-practice-1.0-SNAPSHOT.jar ...}
+ * or load it into a running JVM through the Attach API (Agent-Class).
+ */
+public final class HeapAuditAgent {
+    private static volatile Instrumentation instrumentation;
+
+    private HeapAuditAgent() {
+    }
+
+    public static void premain(String args, Instrumentation inst) {
+        instrumentation = inst;
+    }
+
+    public static void agentmain(String args, Instrumentation inst) {
+        instrumentation = inst;
+    }
+
+    /**
+     * @return the instrumentation, or null if the agent is not installed
+     */
+    static Instrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    public static boolean isInstalled() {
+        return instrumentation != null;
+    }
+}
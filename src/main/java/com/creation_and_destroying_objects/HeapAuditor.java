@@ -0,0 +1,473 @@
+package com.creation_and_destroying_objects;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Finds the obsolete-reference leak shown in {@link LeakyStack} without a heap dump.
+ * Given a container backed by an array and a size (Stack, CorrectedStack, ...), it:
+ * 1. Estimates the live size: the container, its backing array and the elements below size
+ * 2. Estimates the retained size: live size plus whatever the slots at or above size still reference
+ * 3. Counts those obsolete slots, which a correct container would have nulled out
+ *
+ * The backing array is found by reflection: the first reference-array field, and an int field
+ * named size, count, elementCount or top. JDK collections keep their fields in java.base, which
+ * is not open to reflection, so for them only the live size is reported (via size() and iteration)
+ * unless the JVM runs with the matching --add-opens.
+ *
+ * Sizes come from {@link HeapAuditAgent} when it is installed, otherwise from a field-layout
+ * estimate for 64-bit JVMs with compressed references. Elements are walked a few levels deep.
+ * Containers larger than {@value #SAMPLE_LIMIT} elements are sampled and the result scaled.
+ *
+ * For periodic audits, watch() containers and start() the auditor: it holds them weakly and
+ * audits them on a single low-priority daemon thread.
+ */
+public class HeapAuditor implements AutoCloseable {
+    private static final int SAMPLE_LIMIT = 4096;
+    private static final int MAX_DEPTH = 4;
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final String[] SIZE_FIELD_NAMES = {"size", "count", "elementCount", "top"};
+
+    // Backing array and size fields per container class, found once
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return Layout.of(type);
+        }
+    };
+    // Estimated shallow size per class, used when the agent is not installed
+    private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            return estimateInstanceSize(type);
+        }
+    };
+    // Accessible reference fields per class, including inherited ones, for the deep walk
+    private static final ClassValue<Field[]> REFERENCE_FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            return referenceFields(type);
+        }
+    };
+
+    private final Map<String, WeakReference<Object>> watched = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    /**
+     * Result of auditing one container.
+     */
+    public static final class Report {
+        private final String name;
+        private final String type;
+        private final boolean inspectable;
+        private final boolean measured;
+        private final boolean sampled;
+        private final int size;
+        private final int capacity;
+        private final long liveBytes;
+        private final long obsoleteBytes;
+        private final int obsoleteSlots;
+
+        Report(String name, String type, boolean inspectable, boolean sampled, int size, int capacity,
+               long liveBytes, long obsoleteBytes, int obsoleteSlots) {
+            this.name = name;
+            this.type = type;
+            this.inspectable = inspectable;
+            this.measured = HeapAuditAgent.isInstalled();
+            this.sampled = sampled;
+            this.size = size;
+            this.capacity = capacity;
+            this.liveBytes = liveBytes;
+            this.obsoleteBytes = obsoleteBytes;
+            this.obsoleteSlots = obsoleteSlots;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return false if the backing array could not be reached, so obsolete slots are unknown
+         */
+        public boolean isInspectable() {
+            return this.inspectable;
+        }
+
+        public int getSize() {
+            return this.size;
+        }
+
+        /**
+         * @return the backing array length, or -1 if it could not be inspected
+         */
+        public int getCapacity() {
+            return this.capacity;
+        }
+
+        public long getLiveBytes() {
+            return this.liveBytes;
+        }
+
+        public long getRetainedBytes() {
+            return this.liveBytes + this.obsoleteBytes;
+        }
+
+        public long getObsoleteBytes() {
+            return this.obsoleteBytes;
+        }
+
+        public int getObsoleteSlots() {
+            return this.obsoleteSlots;
+        }
+
+        public boolean hasObsoleteReferences() {
+            return this.obsoleteSlots > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" +
+                    "name=" + this.name +
+                    ", type=" + this.type +
+                    ", size=" + this.size +
+                    ", capacity=" + (this.inspectable ? String.valueOf(this.capacity) : "?") +
+                    ", liveBytes=" + this.liveBytes +
+                    ", retainedBytes=" + getRetainedBytes() +
+                    ", obsoleteSlots=" + (this.inspectable ? String.valueOf(this.obsoleteSlots) : "?") +
+                    ", obsoleteBytes=" + this.obsoleteBytes +
+                    (this.measured ? ", measured" : ", estimated") +
+                    (this.sampled ? ", sampled" : "") +
+                    '}';
+        }
+    }
+
+    /**
+     * Audits one container on the calling thread.
+     */
+    public static Report audit(Object container) {
+        return audit(container.getClass().getSimpleName(), container);
+    }
+
+    /**
+     * Audits one container on the calling thread, labelling the report with the given name.
+     */
+    public static Report audit(String name, Object container) {
+        Layout layout = LAYOUTS.get(container.getClass());
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        seen.add(container);
+        long containerBytes = shallowSize(container);
+        if (layout.array == null) {
+            return auditOpaque(name, container, containerBytes, seen);
+        }
+        Object[] elements;
+        int size;
+        try {
+            elements = (Object[]) layout.array.get(container);
+            size = layout.size != null ? layout.size.getInt(container) : countNonNull(elements);
+        } catch (IllegalAccessException e) {
+            return auditOpaque(name, container, containerBytes, seen);
+        }
+        if (elements == null) {
+            return new Report(name, container.getClass().getSimpleName(), true, false, 0, 0, containerBytes, 0, 0);
+        }
+        seen.add(elements);
+        // Clamp: a container with an off-by-one size must not break the audit
+        size = Math.max(0, Math.min(size, elements.length));
+        boolean sampled = size > SAMPLE_LIMIT || elements.length - size > SAMPLE_LIMIT;
+        long liveBytes = containerBytes + shallowSize(elements) + sumDeepSizes(elements, 0, size, seen);
+
+        int obsoleteSlots = 0;
+        for (int i = size; i < elements.length; i++) {
+            if (elements[i] != null) {
+                obsoleteSlots++;
+            }
+        }
+        long obsoleteBytes = obsoleteSlots == 0 ? 0 : sumDeepSizes(elements, size, elements.length, seen);
+        return new Report(name, container.getClass().getSimpleName(), true, sampled, size, elements.length,
+                liveBytes, obsoleteBytes, obsoleteSlots);
+    }
+
+    /**
+     * Registers a container for periodic and on-demand audits. It is held weakly, so watching
+     * a container never keeps it alive.
+     */
+    public void watch(String name, Object container) {
+        this.watched.put(name, new WeakReference<>(container));
+    }
+
+    public void unwatch(String name) {
+        this.watched.remove(name);
+    }
+
+    /**
+     * Audits every watched container that is still reachable, forgetting the collected ones.
+     */
+    public List<Report> auditAll() {
+        List<Report> reports = new ArrayList<>();
+        this.watched.forEach((name, ref) -> {
+            Object container = ref.get();
+            if (container == null) {
+                this.watched.remove(name, ref);
+            } else {
+                reports.add(audit(name, container));
+            }
+        });
+        return reports;
+    }
+
+    /**
+     * Audits the watched containers at a fixed interval on a low-priority daemon thread.
+     * @param interval the time between audits
+     * @param listener receives every report; filter on {@link Report#hasObsoleteReferences()} to alert
+     */
+    public synchronized void start(Duration interval, Consumer<? super Report> listener) {
+        if (this.executor != null) {
+            throw new IllegalStateException("Auditor already started");
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "heap-auditor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        long nanos = interval.toNanos();
+        this.executor.scheduleWithFixedDelay(() -> auditAll().forEach(listener), nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops periodic audits.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+
+    private static Report auditOpaque(String name, Object container, long containerBytes, Set<Object> seen) {
+        if (!(container instanceof Collection)) {
+            return new Report(name, container.getClass().getSimpleName(), false, false, 0, -1, containerBytes, 0, 0);
+        }
+        Collection<?> collection = (Collection<?>) container;
+        int size = collection.size();
+        int step = Math.max(1, size / SAMPLE_LIMIT);
+        long elementBytes = 0;
+        int index = 0;
+        for (Object element : collection) {
+            if (index++ % step == 0) {
+                elementBytes += deepSize(element, seen, 0);
+            }
+        }
+        // The backing storage is at least one reference per element
+        long liveBytes = containerBytes + align(ARRAY_HEADER_BYTES + (long) size * REFERENCE_BYTES) + elementBytes * step;
+        return new Report(name, container.getClass().getSimpleName(), false, step > 1, size, -1, liveBytes, 0, 0);
+    }
+
+    private static long sumDeepSizes(Object[] elements, int from, int to, Set<Object> seen) {
+        int step = Math.max(1, (to - from) / SAMPLE_LIMIT);
+        long bytes = 0;
+        for (int i = from; i < to; i += step) {
+            bytes += deepSize(elements[i], seen, 0);
+        }
+        return bytes * step;
+    }
+
+    private static long deepSize(Object object, Set<Object> seen, int depth) {
+        if (object == null || depth > MAX_DEPTH || !seen.add(object)) {
+            return 0;
+        }
+        if (object instanceof String) {
+            // String internals are not reflectable; count the header and backing array by length
+            return Interner.estimateSize(object);
+        }
+        long bytes = shallowSize(object);
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            if (!type.getComponentType().isPrimitive()) {
+                for (Object element : (Object[]) object) {
+                    bytes += deepSize(element, seen, depth + 1);
+                }
+            }
+            return bytes;
+        }
+        for (Field field : REFERENCE_FIELDS.get(type)) {
+            try {
+                bytes += deepSize(field.get(object), seen, depth + 1);
+            } catch (IllegalAccessException e) {
+                // trySetAccessible succeeded, so this does not happen
+            }
+        }
+        return bytes;
+    }
+
+    private static Field[] referenceFields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                // JDK internals stay closed: those objects count their shallow size only
+                if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()
+                        && field.trySetAccessible()) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields.toArray(new Field[0]);
+    }
+
+    private static long shallowSize(Object object) {
+        Instrumentation instrumentation = HeapAuditAgent.getInstrumentation();
+        if (instrumentation != null) {
+            return instrumentation.getObjectSize(object);
+        }
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            return align(ARRAY_HEADER_BYTES + (long) Array.getLength(object) * bytesPerSlot(type.getComponentType()));
+        }
+        return SHALLOW_SIZES.get(type);
+    }
+
+    private static long estimateInstanceSize(Class<?> type) {
+        long bytes = OBJECT_HEADER_BYTES;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    bytes += bytesPerSlot(field.getType());
+                }
+            }
+        }
+        return align(bytes);
+    }
+
+    private static int bytesPerSlot(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return REFERENCE_BYTES;
+        }
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static int countNonNull(Object[] elements) {
+        int count = 0;
+        for (Object element : elements) {
+            if (element != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Where a container class keeps its elements. Fields are null when not found or not accessible.
+     */
+    private static final class Layout {
+        final Field array;
+        final Field size;
+
+        private Layout(Field array, Field size) {
+            this.array = array;
+            this.size = size;
+        }
+
+        static Layout of(Class<?> type) {
+            Field array = null;
+            Field size = null;
+            for (Class<?> c = type; c != null && (array == null || size == null); c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    if (array == null && field.getType().isArray() && !field.getType().getComponentType().isPrimitive()) {
+                        array = field;
+                    } else if (size == null && field.getType() == int.class && isSizeName(field.getName())) {
+                        size = field;
+                    }
+                }
+            }
+            if (array == null || !array.trySetAccessible()) {
+                return new Layout(null, null);
+            }
+            return new Layout(array, size != null && size.trySetAccessible() ? size : null);
+        }
+
+        private static boolean isSizeName(String name) {
+            for (String candidate : SIZE_FIELD_NAMES) {
+                if (candidate.equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
+
+/**
+ * Example usage of HeapAuditor on the stacks from LeakyStack.
+ * Run with -javaagent:target/java-in-practice-1.0-SNAPSHOT.jar for measured instead of estimated sizes.
+ */
+class HeapAuditorExample {
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Agent installed: " + HeapAuditAgent.isInstalled());
+        Stack<String> leaky = new Stack<>();
+        CorrectedStack<String> corrected = new CorrectedStack<>();
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String value = "value-" + i + "-" + "X".repeat(1000);
+            leaky.push(value);
+            corrected.push(value);
+            list.add(value);
+        }
+        for (int i = 0; i < 900; i++) {
+            leaky.pop();
+            corrected.pop();
+        }
+
+        // Example 1: on-demand audits
+        System.out.println(HeapAuditor.audit("leaky", leaky));
+        System.out.println(HeapAuditor.audit("corrected", corrected));
+        System.out.println(HeapAuditor.audit("list", list));
+
+        // Example 2: periodic audits on a background thread, alerting only on obsolete references
+        try (HeapAuditor auditor = new HeapAuditor()) {
+            auditor.watch("leaky", leaky);
+            auditor.watch("corrected", corrected);
+            auditor.start(Duration.ofMillis(100), report -> {
+                if (report.hasObsoleteReferences()) {
+                    System.out.println("ALERT " + report.getName() + ": " + report.getObsoleteSlots()
+                            + " obsolete slots retaining " + report.getObsoleteBytes() + " bytes");
+                }
+            });
+            Thread.sleep(250);
+        }
+    }
+}
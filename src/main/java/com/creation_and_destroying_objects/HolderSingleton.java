@@ -0,0 +1,41 @@
+package com.creation_and_destroying_objects;
+
+import java.io.Serializable;
+
+/**
+ * Lazy singleton using the initialization-on-demand holder idiom.
+ * Same guarantees as {@link TrueSingleton}, without its lock on every getInstance() call:
+ * 1. The instance lives in a nested class, which the JVM initializes only on its first use,
+ *    i.e. on the first getInstance() call
+ * 2. Class initialization is thread-safe by specification, so no synchronization is written
+ * 3. After that getInstance() reads a static final field, which the JIT can inline as a constant
+ * 4. readResolve() returns the instance, so deserialization does not create a second one
+ *
+ * For lazy values that are not static, see {@link Lazy}.
+ */
+public class HolderSingleton implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static class Holder {
+        static final HolderSingleton INSTANCE = new HolderSingleton();
+    }
+
+    private HolderSingleton() {
+        if (Holder.INSTANCE != null) {
+            throw new IllegalStateException("Singleton instance already exists. Use getInstance() method.");
+        }
+    }
+
+    public static HolderSingleton getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Prevents creation of new instance during deserialization.
+     *
+     * @return the singleton instance
+     */
+    private Object readResolve() {
+        return getInstance();
+    }
+}
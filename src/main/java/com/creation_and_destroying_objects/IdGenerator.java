@@ -0,0 +1,80 @@
+package com.creation_and_destroying_objects;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Source of {@link ResourceId}s for new resources.
+ * Making the source pluggable lets callers trade uniqueness guarantees for speed:
+ * 1. {@link #timeOrdered()} - the default, fast and contention-free
+ * 2. {@link #randomUuid()} - the original UUID.randomUUID() behaviour
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    ResourceId nextId();
+
+    /**
+     * Returns a ULID-style, time-ordered generator.
+     * Layout of the 128 bits:
+     * - 48 bits of epoch milliseconds
+     * - 80 bits of randomness from ThreadLocalRandom
+     *
+     * Each thread keeps its own state, so there is no shared SecureRandom and no CAS.
+     * Within one thread, ids generated in the same millisecond are made monotonic by
+     * incrementing the random part instead of drawing a new one.
+     *
+     * @return the shared time-ordered generator
+     */
+    static IdGenerator timeOrdered() {
+        return TimeOrderedIdGenerator.INSTANCE;
+    }
+
+    /**
+     * Returns a generator backed by UUID.randomUUID(), i.e. a shared SecureRandom.
+     * Kept for callers that need cryptographically strong random ids.
+     *
+     * @return a random UUID generator
+     */
+    static IdGenerator randomUuid() {
+        return () -> {
+            UUID uuid = UUID.randomUUID();
+            return new ResourceId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        };
+    }
+}
+
+/**
+ * Thread-local, lock-free implementation of {@link IdGenerator#timeOrdered()}.
+ */
+final class TimeOrderedIdGenerator implements IdGenerator {
+    static final TimeOrderedIdGenerator INSTANCE = new TimeOrderedIdGenerator();
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    // Per-thread last id, so same-millisecond ids can be incremented rather than redrawn
+    private static final class State {
+        long lastMillis = -1;
+        long high;
+        long low;
+    }
+
+    private TimeOrderedIdGenerator() {
+    }
+
+    @Override
+    public ResourceId nextId() {
+        State state = STATE.get();
+        long now = System.currentTimeMillis();
+        if (now != state.lastMillis) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            state.lastMillis = now;
+            state.high = (now << 16) | (random.nextInt() & 0xFFFF);
+            state.low = random.nextLong();
+        } else if (++state.low == 0) {
+            // Carry into the 16 random bits of the high word
+            state.high = (state.high & ~0xFFFFL) | ((state.high + 1) & 0xFFFF);
+        }
+        return new ResourceId(state.high, state.low);
+    }
+}
@@ -0,0 +1,79 @@
+package com.creation_and_destroying_objects;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares the original UUID.randomUUID().toString() id path with {@link IdGenerator#timeOrdered()}
+ * at 1 to N threads (N = available processors, doubled each round).
+ *
+ * Each scenario runs every thread for a fixed window after a warm-up and reports
+ * total throughput in millions of ids per second. Scenarios:
+ * 1. uuid-string   - what the Resource constructor used to do
+ * 2. time-ordered  - primitive ids only, no string rendered
+ * 3. time-ordered+toString - the cost when the string form is actually needed
+ *
+ * Run with: java -cp target/classes com.creation_and_destroying_objects.IdGeneratorBenchmark
+ */
+public class IdGeneratorBenchmark {
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 1000;
+
+    // Written once per thread so the JIT cannot discard the generated ids
+    private static volatile long sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        IdGenerator timeOrdered = IdGenerator.timeOrdered();
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-24s %8s %12s%n", "scenario", "threads", "Mops/s");
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            run("uuid-string", threads, () -> UUID.randomUUID().toString().length());
+            run("time-ordered", threads, () -> timeOrdered.nextId().getLow());
+            run("time-ordered+toString", threads, () -> timeOrdered.nextId().toString().length());
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private static void run(String name, int threads, LongSupplier operation) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long measureStart = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+                long measureEnd = measureStart + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+                long count = 0;
+                long accumulator = 0;
+                long now;
+                while ((now = System.nanoTime()) < measureEnd) {
+                    accumulator += operation.getAsLong();
+                    if (now >= measureStart) {
+                        count++;
+                    }
+                }
+                sink = accumulator;
+                operations.add(count);
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        double mopsPerSecond = operations.sum() / (MEASURE_MILLIS / 1000.0) / 1_000_000;
+        System.out.printf("%-24s %8d %12.2f%n", name, threads, mopsPerSecond);
+    }
+}
@@ -0,0 +1,258 @@
+package com.creation_and_destroying_objects;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Canonicalizes equal values to a single shared instance, like {@link String#intern()} but for
+ * any immutable value type (Key, String, addresses, ...) and without pinning entries forever.
+ *
+ * Two modes:
+ * 1. weak() - the table holds canonical instances weakly, so an entry is reclaimed once no
+ *    caller references its canonical instance any more. Use for open-ended value sets.
+ * 2. strong() - the table holds canonical instances strongly. Slightly cheaper per call,
+ *    for small fixed vocabularies that should live as long as the interner.
+ *
+ * Both modes are thread-safe and lock-free on the hit path. Statistics report how many
+ * calls returned an existing instance (the dedup ratio) and an estimate of the bytes saved,
+ * i.e. the size of the duplicates callers can now drop.
+ *
+ * Values must be immutable and have consistent equals()/hashCode().
+ *
+ * @param <T> the type of values to canonicalize
+ */
+public abstract class Interner<T> {
+    // Rough 64-bit compressed-oops sizes, used when no size function is supplied
+    private static final long OBJECT_HEADER_BYTES = 16;
+    private static final long STRING_BYTES = 24;
+    private static final long ARRAY_HEADER_BYTES = 16;
+
+    private final ToLongFunction<? super T> sizer;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    Interner(ToLongFunction<? super T> sizer) {
+        this.sizer = Objects.requireNonNull(sizer);
+    }
+
+    /**
+     * Creates an interner whose entries are reclaimed once their canonical instance is unreachable.
+     */
+    public static <T> Interner<T> weak() {
+        return new WeakInterner<>(Interner::estimateSize);
+    }
+
+    /**
+     * @param sizer estimates the retained bytes of a duplicate, for {@link #getBytesSaved()}
+     */
+    public static <T> Interner<T> weak(ToLongFunction<? super T> sizer) {
+        return new WeakInterner<>(sizer);
+    }
+
+    /**
+     * Creates an interner that keeps every canonical instance for its own lifetime.
+     */
+    public static <T> Interner<T> strong() {
+        return new StrongInterner<>(Interner::estimateSize);
+    }
+
+    /**
+     * @param sizer estimates the retained bytes of a duplicate, for {@link #getBytesSaved()}
+     */
+    public static <T> Interner<T> strong(ToLongFunction<? super T> sizer) {
+        return new StrongInterner<>(sizer);
+    }
+
+    /**
+     * Returns the canonical instance equal to the sample, making the sample canonical if
+     * there is none yet.
+     * @param sample the value to canonicalize, not null
+     * @return an instance equal to the sample; the same instance for every equal sample
+     */
+    public final T intern(T sample) {
+        Objects.requireNonNull(sample);
+        this.requests.increment();
+        T canonical = doIntern(sample);
+        if (canonical != sample) {
+            this.duplicates.increment();
+            this.bytesSaved.add(this.sizer.applyAsLong(sample));
+        }
+        return canonical;
+    }
+
+    abstract T doIntern(T sample);
+
+    /**
+     * @return the number of canonical instances currently held; in weak mode this may still
+     *         count entries whose instances were collected since the last drain
+     */
+    public abstract int size();
+
+    /**
+     * Expunges entries whose canonical instances have been collected. A no-op in strong mode;
+     * normally not needed in weak mode either, since inserts drain in batches.
+     */
+    public void drainStaleEntries() {
+    }
+
+    public long getRequestCount() {
+        return this.requests.sum();
+    }
+
+    public long getDuplicateCount() {
+        return this.duplicates.sum();
+    }
+
+    /**
+     * @return the fraction of intern() calls that returned an existing instance
+     */
+    public double getDedupRatio() {
+        long total = getRequestCount();
+        return total == 0 ? 0.0 : (double) getDuplicateCount() / total;
+    }
+
+    /**
+     * @return the estimated bytes of duplicates that intern() replaced with a canonical instance
+     */
+    public long getBytesSaved() {
+        return this.bytesSaved.sum();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "size=" + size() +
+                ", requests=" + getRequestCount() +
+                ", duplicates=" + getDuplicateCount() +
+                ", dedupRatio=" + String.format("%.1f%%", getDedupRatio() * 100) +
+                ", bytesSaved=" + getBytesSaved() +
+                '}';
+    }
+
+    /**
+     * Default size estimate: strings count their header and Latin-1 or UTF-16 backing array,
+     * anything else counts one object header. Supply a size function for nested values.
+     */
+    static long estimateSize(Object value) {
+        if (value instanceof String) {
+            String string = (String) value;
+            boolean latin1 = string.chars().allMatch(c -> c < 0x100);
+            return STRING_BYTES + align(ARRAY_HEADER_BYTES + (long) string.length() * (latin1 ? 1 : 2));
+        }
+        return OBJECT_HEADER_BYTES;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Strong mode: a plain ConcurrentHashMap from each value to itself.
+     */
+    private static final class StrongInterner<T> extends Interner<T> {
+        private final ConcurrentHashMap<T, T> table = new ConcurrentHashMap<>();
+
+        StrongInterner(ToLongFunction<? super T> sizer) {
+            super(sizer);
+        }
+
+        @Override
+        T doIntern(T sample) {
+            T canonical = this.table.get(sample);
+            if (canonical != null) {
+                return canonical;
+            }
+            canonical = this.table.putIfAbsent(sample, sample);
+            return canonical == null ? sample : canonical;
+        }
+
+        @Override
+        public int size() {
+            return this.table.size();
+        }
+    }
+
+    /**
+     * Weak mode: a {@link ConcurrentWeakHashMap} from each value to a weak reference to itself,
+     * so the only strong references to a canonical instance are the callers'. Stale entries are
+     * expunged by the map's own batched drain.
+     */
+    private static final class WeakInterner<T> extends Interner<T> {
+        private final ConcurrentWeakHashMap<T, WeakReference<T>> table = new ConcurrentWeakHashMap<>();
+
+        WeakInterner(ToLongFunction<? super T> sizer) {
+            super(sizer);
+        }
+
+        @Override
+        T doIntern(T sample) {
+            WeakReference<T> existing = this.table.get(sample);
+            T canonical = existing == null ? null : existing.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            WeakReference<T> mine = new WeakReference<>(sample);
+            while (true) {
+                existing = this.table.putIfAbsent(sample, mine);
+                if (existing == null) {
+                    return sample;
+                }
+                canonical = existing.get();
+                if (canonical != null) {
+                    return canonical;
+                }
+                // Key and value share a referent, so both were cleared after the match; the
+                // cleared key no longer equals the sample, so the retry cannot find it again
+            }
+        }
+
+        @Override
+        public int size() {
+            return this.table.size();
+        }
+
+        @Override
+        public void drainStaleEntries() {
+            this.table.drainStaleEntries();
+        }
+    }
+}
+
+/**
+ * Example usage of Interner: deduplicating repeated strings and keys, and letting weak
+ * entries go once the canonical instances are dropped.
+ */
+class InternerExample {
+    public static void main(String[] args) throws InterruptedException {
+        // 1. Strings parsed from input are distinct objects even when equal
+        Interner<String> cityNames = Interner.weak();
+        String[] cities = {"Amsterdam", "Berlin", "Lisbon", "Oslo", "Zürich"};
+        List<String> addresses = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            String parsed = new String(cities[i % cities.length].toCharArray());
+            addresses.add(cityNames.intern(parsed));
+        }
+        System.out.println("Strings: " + cityNames);
+        System.out.println("Same instance: " + (addresses.get(0) == addresses.get(cities.length)));
+
+        // 2. Value objects, with a caller-supplied size (Key header + its name string)
+        Interner<Key> keys = Interner.strong(key -> 16 + Interner.estimateSize(key.toString()));
+        for (int i = 0; i < 10_000; i++) {
+            keys.intern(new Key("key-" + (i % 100)));
+        }
+        System.out.println("Keys: " + keys);
+
+        // 3. Weak entries are reclaimed once nobody holds the canonical instances
+        addresses.clear();
+        System.gc();
+        Thread.sleep(100);
+        cityNames.drainStaleEntries();
+        System.out.println("Strings after dropping all references and GC: size=" + cityNames.size());
+    }
+}
@@ -0,0 +1,139 @@
+package com.creation_and_destroying_objects;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A value computed on first use, for instance-level lazy fields. Static singletons should use
+ * the holder idiom instead (see {@link HolderSingleton}): the JVM's class initialization already
+ * makes it lazy and thread-safe, at no cost per call.
+ *
+ * Double-checked locking, with VarHandle access modes instead of a volatile field:
+ * 1. get() reads the value with acquire semantics; once it is set this is the whole cost,
+ *    a plain load on x86, unlike {@link TrueSingleton#getInstance()} which locks on every call
+ * 2. The first callers synchronize, re-check, run the supplier once and publish the result
+ *    with a release store, so readers that see it also see the fully constructed object
+ * 3. The supplier reference is then dropped, so whatever it captured can be collected
+ *
+ * If the supplier throws, nothing is stored and the next get() tries again. It must not
+ * return null.
+ */
+public final class Lazy<T> implements Supplier<T> {
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Lazy.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Guarded by this; null once the value is set
+    private Supplier<? extends T> supplier;
+    // Accessed through VALUE only
+    private Object value;
+
+    private Lazy(Supplier<? extends T> supplier) {
+        this.supplier = supplier;
+    }
+
+    public static <T> Lazy<T> of(Supplier<? extends T> supplier) {
+        return new Lazy<>(Objects.requireNonNull(supplier));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Object current = VALUE.getAcquire(this);
+        if (current == null) {
+            current = initialize();
+        }
+        return (T) current;
+    }
+
+    public boolean isInitialized() {
+        return VALUE.getAcquire(this) != null;
+    }
+
+    @Override
+    public String toString() {
+        Object current = VALUE.getAcquire(this);
+        return current == null ? "Lazy{initialized=false}" : "Lazy{initialized=true, value=" + current + '}';
+    }
+
+    private synchronized Object initialize() {
+        // The lock orders this read after any earlier initialization
+        Object current = VALUE.get(this);
+        if (current == null) {
+            current = this.supplier.get();
+            if (current == null) {
+                throw new IllegalStateException("Lazy supplier returned null");
+            }
+            VALUE.setRelease(this, current);
+            this.supplier = null;
+        }
+        return current;
+    }
+}
+
+/**
+ * Example usage of Lazy and HolderSingleton.
+ */
+class LazyExample {
+    private final AtomicInteger factoryCalls = new AtomicInteger();
+    // An expensive, optional part of an object: built once, on first use, by whichever thread comes first
+    private final Lazy<ResourceFactory> factory = Lazy.of(() -> {
+        this.factoryCalls.incrementAndGet();
+        return new ResourceFactory(Resource::new);
+    });
+
+    public static void main(String[] args) throws Exception {
+        LazyExample example = new LazyExample();
+        System.out.println("Before use: " + example.factory);
+
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                example.factory.get();
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.println(threads + " racing threads, supplier calls: " + example.factoryCalls.get());
+
+        // readResolve keeps deserialization from creating a second singleton
+        HolderSingleton copy = roundTrip(HolderSingleton.getInstance());
+        System.out.println("HolderSingleton survives serialization: " + (copy == HolderSingleton.getInstance()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T object) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.creation_and_destroying_objects;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects Cleaner-managed resources that were never closed.
+ * The Cleaner is only a safety net: when it does the cleanup instead of close(), native memory
+ * and other resources stay held until a GC happens to collect the owner. This detector reports
+ * those cases, aggregated by the place the leaked resource was allocated.
+ *
+ * Levels:
+ * 1. DISABLED - no tracking; {@link #track(Class)} returns null and costs one volatile read
+ * 2. SAMPLED  - one in {@link #getSamplingInterval()} resources is tracked, with its allocation stack
+ * 3. PARANOID - every resource is tracked, with its allocation stack
+ *
+ * Usage by a resource:
+ * - call {@link #track(Class)} in the constructor and keep the Tracker in the Cleaner State
+ * - call {@link Tracker#markClosed()} in close() before cleaning
+ * - call {@link Tracker#onCleanup()} from the State's run()
+ */
+public final class LeakDetector {
+    public enum Level { DISABLED, SAMPLED, PARANOID }
+
+    // Frames of the allocation stack used to identify the allocation site
+    private static final int SITE_FRAMES = 8;
+
+    private static volatile Level level = Level.SAMPLED;
+    private static volatile int samplingInterval = 128;
+
+    private static final Map<String, LongAdder> leaksBySite = new ConcurrentHashMap<>();
+    private static final LongAdder trackedCount = new LongAdder();
+
+    private LeakDetector() {
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = Objects.requireNonNull(newLevel);
+    }
+
+    public static int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * @param interval track one in {@code interval} resources when the level is SAMPLED
+     */
+    public static void setSamplingInterval(int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive: " + interval);
+        }
+        samplingInterval = interval;
+    }
+
+    /**
+     * Decides whether a new resource is tracked and, if so, captures its allocation stack.
+     * @param resourceType the class of the resource being created
+     * @return a tracker to keep in the resource's Cleaner state, or null if it is not tracked
+     */
+    public static Tracker track(Class<?> resourceType) {
+        Level current = level;
+        if (current == Level.DISABLED) {
+            return null;
+        }
+        if (current == Level.SAMPLED && ThreadLocalRandom.current().nextInt(samplingInterval) != 0) {
+            return null;
+        }
+        trackedCount.increment();
+        return new Tracker(resourceType.getName(), new Throwable());
+    }
+
+    /**
+     * @return the number of resources tracked since start-up (or the last {@link #reset()})
+     */
+    public static long getTrackedCount() {
+        return trackedCount.sum();
+    }
+
+    /**
+     * @return leak counts keyed by allocation site, sorted by site
+     */
+    public static Map<String, Long> getLeaksBySite() {
+        Map<String, Long> report = new TreeMap<>();
+        leaksBySite.forEach((site, count) -> report.put(site, count.sum()));
+        return report;
+    }
+
+    public static long getLeakCount() {
+        long total = 0;
+        for (LongAdder count : leaksBySite.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    public static void report(PrintStream out) {
+        Map<String, Long> report = getLeaksBySite();
+        out.println("LeakDetector: " + getLeakCount() + " leak(s) in " + getTrackedCount()
+                + " tracked resource(s), level=" + level);
+        report.forEach((site, count) -> out.println(count + " x " + site));
+    }
+
+    public static void reset() {
+        leaksBySite.clear();
+        trackedCount.reset();
+    }
+
+    private static void recordLeak(Tracker tracker) {
+        leaksBySite.computeIfAbsent(tracker.site(), site -> new LongAdder()).increment();
+    }
+
+    /**
+     * Per-resource tracking record. Must not reference the resource itself, since it is held by
+     * the Cleaner state and would otherwise keep the resource reachable forever.
+     */
+    public static final class Tracker {
+        private final String resourceType;
+        private final Throwable allocation;
+        private volatile boolean closed;
+
+        private Tracker(String resourceType, Throwable allocation) {
+            this.resourceType = resourceType;
+            this.allocation = allocation;
+        }
+
+        /**
+         * Records that the resource was closed explicitly.
+         */
+        public void markClosed() {
+            this.closed = true;
+        }
+
+        /**
+         * Called from the cleanup action; reports a leak if close() never happened.
+         */
+        public void onCleanup() {
+            if (!this.closed) {
+                recordLeak(this);
+            }
+        }
+
+        // Rendered only for leaked resources, so the common path never formats a stack trace
+        private String site() {
+            StringBuilder site = new StringBuilder(this.resourceType);
+            StackTraceElement[] frames = this.allocation.getStackTrace();
+            int written = 0;
+            for (StackTraceElement frame : frames) {
+                if (frame.getClassName().equals(LeakDetector.class.getName())) {
+                    continue;
+                }
+                site.append("\n\tat ").append(frame);
+                if (++written == SITE_FRAMES) {
+                    break;
+                }
+            }
+            return site.toString();
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package com.creation_and_destroying_objects;
 
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Demonstrates a memory leak in a Stack implementation.
@@ -89,10 +95,18 @@ class Stack<T> {
 /**
  * A corrected Stack implementation that prevents memory leaks
  * by nullifying references in the backing array.
+ *
+ * Both traversals run bottom to top (push order), like java.util.Stack:
+ * 1. iterator() walks a snapshot of the elements, so the stack may be pushed and popped meanwhile
+ * 2. spliterator() and stream() read the backing array in place and split it in halves, so
+ *    parallel streams spread over the ForkJoin pool without an intermediate copy. They are
+ *    fail-fast instead: a push or pop during the traversal throws ConcurrentModificationException
  */
-class CorrectedStack<T> {
+class CorrectedStack<T> implements Iterable<T> {
     private Object[] elements;
     private int size = 0;
+    // Incremented by push and pop, so in-place traversals can detect them
+    private int modCount;
     private static final int DEFAULT_INITIAL_CAPACITY = 16;
 
     public CorrectedStack() {
@@ -102,6 +116,7 @@ class CorrectedStack<T> {
     public void push(T e) {
         ensureCapacity();
         this.elements[size++] = e;
+        this.modCount++;
     }
 
     public T pop() {
@@ -111,6 +126,7 @@ class CorrectedStack<T> {
         // Fix: Nullify the reference in the array
         T result = (T) this.elements[--size];
         this.elements[size] = null; // Eliminate obsolete reference
+        this.modCount++;
         return result;
     }
 
@@ -122,9 +138,126 @@ class CorrectedStack<T> {
         return this.elements.length;
     }
 
+    /**
+     * @return an iterator over a copy of the current elements, unaffected by later pushes and pops
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<T> iterator() {
+        return Arrays.asList((T[]) Arrays.copyOf(this.elements, this.size)).iterator();
+    }
+
+    /**
+     * @return a SIZED, SUBSIZED and ORDERED spliterator over the current elements, in place
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new StackSpliterator(this.elements, 0, this.size, this.modCount);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
     private void ensureCapacity() {
         if (this.elements.length == this.size) {
             this.elements = Arrays.copyOf(this.elements, 2 * this.size + 1);
         }
     }
-} 
\ No newline at end of file
+
+    // Array spliterator that checks modCount before every element, so it never hands out a popped slot
+    private final class StackSpliterator implements Spliterator<T> {
+        private final Object[] array;
+        private int index;
+        private final int fence;
+        private final int expectedModCount;
+
+        StackSpliterator(Object[] array, int origin, int fence, int expectedModCount) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (this.index >= this.fence) {
+                return false;
+            }
+            checkForComodification();
+            action.accept(element(this.index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            for (; this.index < this.fence; this.index++) {
+                checkForComodification();
+                action.accept(element(this.index));
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (this.index + this.fence) >>> 1;
+            if (mid <= this.index) {
+                return null;
+            }
+            Spliterator<T> prefix = new StackSpliterator(this.array, this.index, mid, this.expectedModCount);
+            this.index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.fence - this.index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T element(int i) {
+            return (T) this.array[i];
+        }
+
+        private void checkForComodification() {
+            if (modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+} 
+
+/**
+ * Example usage of CorrectedStack streams: a large aggregate scan, sequential and parallel.
+ */
+class CorrectedStackStreamExample {
+    public static void main(String[] args) {
+        CorrectedStack<Integer> stack = new CorrectedStack<>();
+        for (int i = 0; i < 5_000_000; i++) {
+            stack.push(i);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long sequential = stack.stream().mapToLong(Integer::longValue).filter(v -> v % 3 == 0).sum();
+            long sequentialMillis = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            long parallel = stack.stream().parallel().mapToLong(Integer::longValue).filter(v -> v % 3 == 0).sum();
+            long parallelMillis = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.println("Sum of multiples of 3: sequential=" + sequential + " (" + sequentialMillis + " ms)"
+                    + ", parallel=" + parallel + " (" + parallelMillis + " ms)");
+        }
+
+        int count = 0;
+        for (Integer ignored : stack) {
+            count++;
+        }
+        System.out.println("Iterated " + count + " elements, bottom first: " + stack.iterator().next());
+    }
+}
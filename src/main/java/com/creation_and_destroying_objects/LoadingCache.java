@@ -0,0 +1,481 @@
+package com.creation_and_destroying_objects;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache that loads missing values itself, built on {@link BoundedCache}. It targets the two
+ * latency problems of caching an expensive supplier:
+ * 1. Thundering herd - concurrent misses for the same key share one in-flight load
+ * 2. Expiry spikes - once an entry is older than the refresh interval, the next read starts an
+ *    asynchronous reload on the executor and keeps returning the current value until it lands,
+ *    so a popular entry is replaced before it expires instead of being missing while it reloads
+ *
+ * getAll() collects the keys that are neither cached nor already loading and passes them to
+ * {@link Loader#loadAll} in one call, so loaders backed by a batch API avoid N round trips.
+ *
+ * A failed load is not cached; the next request tries again. A failed refresh keeps the
+ * current value, which then expires normally if refreshes keep failing.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class LoadingCache<K, V> {
+
+    /**
+     * Computes values for the cache. Loads run on the cache's executor.
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        /**
+         * @return the value for the key, or null if there is none (nothing is cached)
+         */
+        V load(K key) throws Exception;
+
+        /**
+         * Loads several keys at once. The default loads them one at a time; override it when the
+         * source has a batch API. Keys missing from the result are treated as having no value.
+         */
+        default Map<K, V> loadAll(Set<? extends K> keys) throws Exception {
+            Map<K, V> result = new LinkedHashMap<>();
+            for (K key : keys) {
+                V value = load(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            return result;
+        }
+    }
+
+    private final BoundedCache<K, Loaded<V>> cache;
+    private final Loader<K, V> loader;
+    private final Executor executor;
+    private final Ticker ticker;
+    // Zero when refresh-ahead is disabled
+    private final long refreshAfterWriteNanos;
+    // Loads and refreshes in progress; a later request for the same key joins the same future
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder batchLoads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    // A loaded value and when it was loaded, for the refresh check
+    private static final class Loaded<V> {
+        final V value;
+        final long loadTime;
+
+        Loaded(V value, long loadTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+        }
+    }
+
+    private LoadingCache(Builder<K, V> builder, Loader<K, V> loader) {
+        BoundedCache.Builder<K, Loaded<V>> cacheBuilder = BoundedCache.<K, Loaded<V>>builder()
+                .maximumWeight(builder.maximumSize)
+                .ticker(builder.ticker);
+        if (builder.expireAfterWrite != null) {
+            cacheBuilder.expireAfterWrite(builder.expireAfterWrite);
+        }
+        this.cache = cacheBuilder.build();
+        this.loader = loader;
+        this.executor = builder.executor != null ? builder.executor : DefaultExecutor.INSTANCE;
+        this.ticker = builder.ticker;
+        this.refreshAfterWriteNanos = builder.refreshAfterWrite == null ? 0 : builder.refreshAfterWrite.toNanos();
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Returns the value for the key, loading it if needed and waiting for the load.
+     * @throws IllegalStateException if the load failed, with the loader's exception as the cause
+     */
+    public V get(K key) {
+        return join(getAsync(key), key);
+    }
+
+    /**
+     * Returns a future for the value: already complete on a hit, otherwise shared by every
+     * caller waiting on the same key.
+     */
+    public CompletableFuture<V> getAsync(K key) {
+        Objects.requireNonNull(key);
+        V value = getIfPresent(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            this.coalesced.increment();
+            return existing;
+        }
+        startLoad(Collections.singletonMap(key, mine), false);
+        return mine;
+    }
+
+    /**
+     * Returns the values for the keys, waiting for any loads. Keys without a value are omitted.
+     * @throws IllegalStateException if a load failed, with the loader's exception as the cause
+     */
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        return join(getAllAsync(keys), keys);
+    }
+
+    /**
+     * Returns a future for the values of the keys. Keys that are neither cached nor loading are
+     * loaded with a single {@link Loader#loadAll} call.
+     */
+    public CompletableFuture<Map<K, V>> getAllAsync(Iterable<? extends K> keys) {
+        Map<K, CompletableFuture<V>> results = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> toLoad = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (results.containsKey(key)) {
+                continue;
+            }
+            V value = getIfPresent(key);
+            if (value != null) {
+                results.put(key, CompletableFuture.completedFuture(value));
+                continue;
+            }
+            CompletableFuture<V> mine = new CompletableFuture<>();
+            CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, mine);
+            if (existing != null) {
+                this.coalesced.increment();
+                results.put(key, existing);
+            } else {
+                results.put(key, mine);
+                toLoad.put(key, mine);
+            }
+        }
+        if (!toLoad.isEmpty()) {
+            startLoad(toLoad, false);
+        }
+        return CompletableFuture.allOf(results.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    Map<K, V> values = new LinkedHashMap<>();
+                    results.forEach((key, future) -> {
+                        V value = future.join();
+                        if (value != null) {
+                            values.put(key, value);
+                        }
+                    });
+                    return values;
+                });
+    }
+
+    /**
+     * Returns the cached value without loading, starting a background refresh if it is due.
+     */
+    public V getIfPresent(K key) {
+        Loaded<V> loaded = this.cache.get(key);
+        if (loaded == null) {
+            return null;
+        }
+        if (this.refreshAfterWriteNanos > 0 && this.ticker.read() - loaded.loadTime >= this.refreshAfterWriteNanos) {
+            refresh(key);
+        }
+        return loaded.value;
+    }
+
+    /**
+     * Reloads the value in the background unless a load for the key is already in progress.
+     * Readers keep getting the current value until the new one is stored.
+     */
+    public void refresh(K key) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        if (this.inFlight.putIfAbsent(key, mine) == null) {
+            this.refreshes.increment();
+            startLoad(Collections.singletonMap(key, mine), true);
+        }
+    }
+
+    /**
+     * Stores the value. A load already in flight for the key is superseded: its waiters still
+     * receive its result, but the result is not stored over this value.
+     */
+    public void put(K key, V value) {
+        Loaded<V> loaded = new Loaded<>(value, this.ticker.read());
+        // Dropping the in-flight entry in the same step is what makes a late load skip its store
+        this.inFlight.compute(key, (k, future) -> {
+            this.cache.put(key, loaded);
+            return null;
+        });
+    }
+
+    /**
+     * Removes the cached value. A load already in flight for the key is superseded, as for put().
+     */
+    public void invalidate(K key) {
+        this.inFlight.compute(key, (k, future) -> {
+            this.cache.remove(key);
+            return null;
+        });
+    }
+
+    private void startLoad(Map<K, CompletableFuture<V>> batch, boolean refresh) {
+        try {
+            this.executor.execute(() -> load(batch, refresh));
+        } catch (RuntimeException e) {
+            // Rejected: fail the waiters instead of leaving them hanging
+            complete(batch, null, e, refresh);
+        }
+    }
+
+    private void load(Map<K, CompletableFuture<V>> batch, boolean refresh) {
+        Map<K, V> values;
+        try {
+            if (batch.size() == 1) {
+                K key = batch.keySet().iterator().next();
+                this.loads.increment();
+                V value = this.loader.load(key);
+                values = value == null ? Collections.emptyMap() : Collections.singletonMap(key, value);
+            } else {
+                this.batchLoads.increment();
+                values = this.loader.loadAll(batch.keySet());
+            }
+        } catch (Throwable e) {
+            complete(batch, null, e, refresh);
+            return;
+        }
+        complete(batch, values, null, refresh);
+    }
+
+    private void complete(Map<K, CompletableFuture<V>> batch, Map<K, V> values, Throwable failure, boolean refresh) {
+        if (failure != null) {
+            if (refresh) {
+                this.refreshFailures.increment();
+            } else {
+                this.loadFailures.increment();
+            }
+        }
+        long now = this.ticker.read();
+        for (Map.Entry<K, CompletableFuture<V>> entry : batch.entrySet()) {
+            K key = entry.getKey();
+            CompletableFuture<V> future = entry.getValue();
+            V value = values == null ? null : values.get(key);
+            // Store and leave the in-flight map in one step, and only if no put() or invalidate()
+            // has superseded this load in the meantime
+            this.inFlight.compute(key, (k, current) -> {
+                if (current != future) {
+                    return current;
+                }
+                if (value != null) {
+                    this.cache.put(key, new Loaded<>(value, now));
+                }
+                return null;
+            });
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(value);
+            }
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future, Object keys) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Loading failed for " + keys, e.getCause());
+        }
+    }
+
+    public long getLoadCount() {
+        return this.loads.sum();
+    }
+
+    public long getBatchLoadCount() {
+        return this.batchLoads.sum();
+    }
+
+    public long getLoadFailureCount() {
+        return this.loadFailures.sum();
+    }
+
+    /**
+     * @return the number of requests that joined a load already in flight instead of starting one
+     */
+    public long getCoalescedCount() {
+        return this.coalesced.sum();
+    }
+
+    public long getRefreshCount() {
+        return this.refreshes.sum();
+    }
+
+    public long getRefreshFailureCount() {
+        return this.refreshFailures.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "LoadingCache{" +
+                "size=" + this.cache.estimatedSize() +
+                ", hits=" + this.cache.getHitCount() +
+                ", misses=" + this.cache.getMissCount() +
+                ", loads=" + getLoadCount() +
+                ", batchLoads=" + getBatchLoadCount() +
+                ", coalesced=" + getCoalescedCount() +
+                ", refreshes=" + getRefreshCount() +
+                ", loadFailures=" + getLoadFailureCount() +
+                ", refreshFailures=" + getRefreshFailureCount() +
+                '}';
+    }
+
+    // Loaders are usually blocking I/O, so the default is a cached pool of daemon threads
+    private static final class DefaultExecutor {
+        static final Executor INSTANCE = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "loading-cache-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Builder for {@link LoadingCache}. The maximum size is required.
+     */
+    public static class Builder<K, V> {
+        private long maximumSize = -1;
+        private Duration expireAfterWrite;
+        private Duration refreshAfterWrite;
+        private Executor executor;
+        private Ticker ticker = Ticker.system();
+
+        private Builder() {
+        }
+
+        public Builder<K, V> maximumSize(long maximumSize) {
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Entries older than this are no longer returned; the next request loads them again.
+         */
+        public Builder<K, V> expireAfterWrite(Duration duration) {
+            this.expireAfterWrite = Objects.requireNonNull(duration);
+            return this;
+        }
+
+        /**
+         * Entries older than this are reloaded in the background on their next read, while the
+         * current value keeps being served. Must be shorter than expireAfterWrite to help.
+         */
+        public Builder<K, V> refreshAfterWrite(Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("duration must be positive: " + duration);
+            }
+            this.refreshAfterWrite = duration;
+            return this;
+        }
+
+        /**
+         * Sets the executor for loads and refreshes; defaults to a shared cached daemon pool.
+         */
+        public Builder<K, V> executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        public Builder<K, V> ticker(Ticker ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+
+        public LoadingCache<K, V> build(Loader<K, V> loader) {
+            Objects.requireNonNull(loader);
+            if (this.maximumSize < 0) {
+                throw new IllegalStateException("maximumSize is required");
+            }
+            if (this.refreshAfterWrite != null && this.expireAfterWrite != null
+                    && this.refreshAfterWrite.compareTo(this.expireAfterWrite) >= 0) {
+                throw new IllegalStateException("refreshAfterWrite must be shorter than expireAfterWrite");
+            }
+            return new LoadingCache<>(this, loader);
+        }
+    }
+}
+
+/**
+ * Example usage of LoadingCache wrapping a slow ResourceFactory supplier.
+ */
+class LoadingCacheExample {
+    public static void main(String[] args) throws InterruptedException {
+        long[] now = {0};
+        AtomicInteger supplierCalls = new AtomicInteger();
+        ResourceFactory factory = new ResourceFactory(() -> {
+            supplierCalls.incrementAndGet();
+            sleep(100);
+            return new Resource();
+        });
+        LoadingCache<String, Resource> cache = LoadingCache.<String, Resource>builder()
+                .maximumSize(1000)
+                .refreshAfterWrite(Duration.ofMinutes(1))
+                .expireAfterWrite(Duration.ofMinutes(5))
+                .ticker(() -> now[0])
+                .build(name -> factory.createResource());
+
+        // Example 1: 50 concurrent misses for one key cause a single load
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Thread thread = new Thread(() -> cache.get("config"));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println("Supplier calls for 50 concurrent misses: " + supplierCalls.get());
+
+        // Example 2: after the refresh interval, reads return the old value at once while it reloads
+        Resource original = cache.get("config");
+        now[0] = Duration.ofMinutes(2).toNanos();
+        long start = System.nanoTime();
+        Resource stale = cache.get("config");
+        System.out.printf("Read during refresh took %d us, served the old value: %b%n",
+                (System.nanoTime() - start) / 1000, stale == original);
+        Thread.sleep(300);
+        System.out.println("After the refresh, a new value: " + (cache.get("config") != original));
+
+        // Example 3: getAll batches the misses into one loadAll call
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            keys.add("resource-" + i);
+        }
+        Map<String, Resource> all = cache.getAll(keys);
+        System.out.println("getAll returned " + all.size() + " values");
+        System.out.println(cache);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
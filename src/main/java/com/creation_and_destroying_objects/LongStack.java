@@ -0,0 +1,94 @@
+package com.creation_and_destroying_objects;
+
+import java.util.Arrays;
+
+/**
+ * A long specialization of {@link CorrectedStack}: same API shape, backed by a long[] so
+ * pushing never allocates a Long box.
+ *
+ * Because the backing array holds values rather than references, popped slots cannot keep
+ * anything alive and need no clearing.
+ *
+ * Bulk operations move many values per call:
+ * 1. pushAll(values) pushes in array order with one capacity check and one array copy,
+ *    so the last value ends up on top
+ * 2. popInto(target) pops into the target from index 0, so target[0] is the former top;
+ *    the order is reversed, so it copies in a single loop rather than with arraycopy
+ */
+public class LongStack {
+    private long[] elements;
+    private int size = 0;
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    public LongStack() {
+        this.elements = new long[DEFAULT_INITIAL_CAPACITY];
+    }
+
+    public void push(long e) {
+        ensureCapacity(this.size + 1);
+        this.elements[size++] = e;
+    }
+
+    public long pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        return this.elements[--this.size];
+    }
+
+    public long peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        return this.elements[size - 1];
+    }
+
+    /**
+     * Pushes every value in array order.
+     */
+    public void pushAll(long[] values) {
+        pushAll(values, 0, values.length);
+    }
+
+    /**
+     * Pushes values[offset] to values[offset + length - 1], in that order.
+     */
+    public void pushAll(long[] values, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > values.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array " + values.length);
+        }
+        ensureCapacity(this.size + length);
+        System.arraycopy(values, offset, this.elements, this.size, length);
+        this.size += length;
+    }
+
+    /**
+     * Pops up to target.length values into target, top first.
+     * @return the number of values popped
+     */
+    public int popInto(long[] target) {
+        int count = Math.min(target.length, this.size);
+        for (int i = 0; i < count; i++) {
+            target[i] = this.elements[--this.size];
+        }
+        return count;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int getBackingArrayLength() {
+        return this.elements.length;
+    }
+
+    private void ensureCapacity(int required) {
+        if (this.elements.length < required) {
+            this.elements = Arrays.copyOf(this.elements, Math.max(2 * this.size + 1, required));
+        }
+    }
+}
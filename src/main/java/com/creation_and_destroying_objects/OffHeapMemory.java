@@ -0,0 +1,137 @@
+package com.creation_and_destroying_objects;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide accounting for off-heap memory owned by resources such as {@link OffHeapResource}.
+ * Direct memory does not show up in heap dumps or heap usage, so without accounting the only
+ * signal of a leak is the process running out of native memory. This class:
+ * 1. Counts bytes allocated, freed and still outstanding
+ * 2. Enforces a configurable cap, failing allocation instead of growing without bound
+ * 3. Frees direct buffers immediately instead of waiting for the buffer itself to be collected
+ */
+public final class OffHeapMemory {
+    private static final AtomicLong allocatedBytes = new AtomicLong();
+    private static final AtomicLong freedBytes = new AtomicLong();
+    private static final AtomicLong outstandingBytes = new AtomicLong();
+    private static volatile long maxBytes = Long.MAX_VALUE;
+
+    // Unsafe.invokeCleaner(ByteBuffer), if the runtime allows it; looked up once
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    private OffHeapMemory() {
+    }
+
+    /**
+     * Allocates a direct buffer after reserving its size against the cap.
+     * @param bytes the buffer capacity
+     * @return a new direct buffer
+     * @throws IllegalStateException if the allocation would exceed the cap
+     */
+    static ByteBuffer allocate(int bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("bytes must not be negative: " + bytes);
+        }
+        reserve(bytes);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes);
+            allocatedBytes.addAndGet(bytes);
+            return buffer;
+        } catch (OutOfMemoryError e) {
+            outstandingBytes.addAndGet(-bytes);
+            throw e;
+        }
+    }
+
+    /**
+     * Frees a buffer obtained from {@link #allocate(int)}. The buffer must not be used afterwards.
+     * @param buffer the buffer to free
+     */
+    static void free(ByteBuffer buffer) {
+        int bytes = buffer.capacity();
+        release(buffer);
+        freedBytes.addAndGet(bytes);
+        outstandingBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * Releases a mapped or direct buffer that is not tracked by this class, e.g. a
+     * MappedByteBuffer, without waiting for the GC. The buffer must not be used afterwards.
+     * @param buffer the buffer to release
+     */
+    static void release(ByteBuffer buffer) {
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(buffer);
+            } catch (Throwable e) {
+                // Fall through: the mapping is released when the buffer object is collected
+            }
+        }
+    }
+
+    private static void reserve(long bytes) {
+        long current;
+        do {
+            current = outstandingBytes.get();
+            if (current + bytes > maxBytes) {
+                throw new IllegalStateException("Off-heap cap exceeded: requested " + bytes
+                        + " bytes with " + current + " of " + maxBytes + " outstanding");
+            }
+        } while (!outstandingBytes.compareAndSet(current, current + bytes));
+    }
+
+    public static long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    public static long getFreedBytes() {
+        return freedBytes.get();
+    }
+
+    public static long getOutstandingBytes() {
+        return outstandingBytes.get();
+    }
+
+    public static long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Sets the cap on outstanding bytes. Lowering it below the current usage does not free
+     * anything; it only makes further allocations fail until enough memory is returned.
+     * @param bytes the new cap
+     */
+    public static void setMaxBytes(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("bytes must not be negative: " + bytes);
+        }
+        maxBytes = bytes;
+    }
+
+    public static String summary() {
+        return "OffHeapMemory{" +
+                "allocated=" + getAllocatedBytes() +
+                ", freed=" + getFreedBytes() +
+                ", outstanding=" + getOutstandingBytes() +
+                ", max=" + (maxBytes == Long.MAX_VALUE ? "unbounded" : String.valueOf(maxBytes)) +
+                '}';
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.creation_and_destroying_objects;
+
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+
+/**
+ * Off-heap counterpart of {@link ResourceWithCleaner}: the State owns a direct buffer.
+ * The same two-level cleanup applies:
+ * 1. close() frees the native memory deterministically, which is the normal path
+ * 2. The Cleaner frees it if the resource becomes unreachable without being closed
+ *
+ * All allocation and freeing goes through {@link OffHeapMemory}, so usage is capped
+ * and visible without a heap dump.
+ *
+ * The buffer itself is never handed out: a caller holding it after close() would read
+ * freed memory. Access goes through the accessor methods, which check the resource is open.
+ * Like most AutoCloseables, closing concurrently with access is not supported.
+ */
+public class OffHeapResource implements AutoCloseable {
+    private static final Cleaner cleaner = Cleaner.create();
+
+    private final String name;
+    private final State state;
+    private final Cleaner.Cleanable cleanable;
+
+    // State class to hold the native memory; must not reference the OffHeapResource
+    private static class State implements Runnable {
+        private final String name;
+        private final ByteBuffer buffer;
+        // Null unless the leak detector chose to track this resource
+        private final LeakDetector.Tracker tracker;
+        private final long createdNanos;
+        // Set by close() or by closing the scope, so metrics can tell them from the Cleaner
+        private volatile boolean explicitRelease;
+        private volatile boolean freed;
+
+        State(String name, int capacity, LeakDetector.Tracker tracker) {
+            this.name = name;
+            this.buffer = OffHeapMemory.allocate(capacity);
+            this.tracker = tracker;
+            this.createdNanos = ResourceMetrics.created(OffHeapResource.class, name);
+        }
+
+        @Override
+        public void run() {
+            // Runs at most once: either from close() or from the Cleaner thread
+            this.freed = true;
+            OffHeapMemory.free(this.buffer);
+            ResourceMetrics.released(OffHeapResource.class, this.name, this.createdNanos, this.explicitRelease);
+            if (this.tracker != null) {
+                this.tracker.onCleanup();
+            }
+        }
+
+        // Scope action: the scope reports whether it is being closed or cleaned by its Cleaner
+        void release(boolean explicit) {
+            if (explicit) {
+                this.explicitRelease = true;
+            }
+            run();
+        }
+    }
+
+    public OffHeapResource(String name, int capacity) {
+        this.name = name;
+        this.state = new State(name, capacity, LeakDetector.track(OffHeapResource.class));
+        this.cleanable = cleaner.register(this, this.state);
+    }
+
+    /**
+     * Creates a resource whose memory is released when the scope closes, if not closed earlier.
+     * Avoids a per-object Cleaner registration; the scope's own registration is the safety net.
+     * Leak tracking is left to the scope, since closing the scope is a legitimate way to clean up.
+     */
+    public OffHeapResource(String name, int capacity, ResourceScope scope) {
+        this.name = name;
+        this.state = new State(name, capacity, null);
+        this.cleanable = scope.register(this.state::release);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int capacity() {
+        return this.state.buffer.capacity();
+    }
+
+    public boolean isClosed() {
+        return this.state.freed;
+    }
+
+    // Each accessor keeps this resource reachable until the access is done; otherwise the
+    // Cleaner could free the buffer while it is still being read or written
+    public byte getByte(int index) {
+        try {
+            return openBuffer().get(index);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public void putByte(int index, byte value) {
+        try {
+            openBuffer().put(index, value);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public long getLong(int index) {
+        try {
+            return openBuffer().getLong(index);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    public void putLong(int index, long value) {
+        try {
+            openBuffer().putLong(index, value);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    private ByteBuffer openBuffer() {
+        if (this.state.freed) {
+            throw new IllegalStateException("Resource " + this.name + " is closed");
+        }
+        return this.state.buffer;
+    }
+
+    @Override
+    public void close() {
+        this.state.explicitRelease = true;
+        if (this.state.tracker != null) {
+            this.state.tracker.markClosed();
+        }
+        this.cleanable.clean();
+    }
+}
+
+/**
+ * Example usage of OffHeapResource showing deterministic release, the Cleaner fallback and the cap.
+ */
+class OffHeapResourceExample {
+    public static void main(String[] args) throws InterruptedException {
+        OffHeapMemory.setMaxBytes(4 * 1024 * 1024);
+
+        // Example 1: try-with-resources frees the memory as soon as the block ends
+        try (OffHeapResource resource = new OffHeapResource("buffer-1", 1024 * 1024)) {
+            resource.putLong(0, 42L);
+            System.out.println("Read back: " + resource.getLong(0));
+            System.out.println("While open: " + OffHeapMemory.summary());
+        }
+        System.out.println("After close: " + OffHeapMemory.summary());
+
+        // Example 2: the cap stops allocation instead of letting native memory grow
+        try (OffHeapResource big = new OffHeapResource("buffer-2", 3 * 1024 * 1024);
+             OffHeapResource tooBig = new OffHeapResource("buffer-3", 2 * 1024 * 1024)) {
+            System.out.println("Unexpected: both allocated, " + big.capacity() + " + " + tooBig.capacity() + " bytes");
+        } catch (IllegalStateException e) {
+            System.out.println("Expected: " + e.getMessage());
+        }
+
+        // Example 3: a forgotten resource is freed by the Cleaner once it is collected
+        new OffHeapResource("forgotten", 1024 * 1024);
+        System.out.println("Forgotten, before GC: " + OffHeapMemory.summary());
+        System.gc();
+        Thread.sleep(500);
+        System.out.println("Forgotten, after GC: " + OffHeapMemory.summary());
+
+        // Example 4: the leak detector reports forgotten resources by allocation site
+        LeakDetector.setLevel(LeakDetector.Level.PARANOID);
+        for (int i = 0; i < 3; i++) {
+            new OffHeapResource("leaked-" + i, 1024);
+        }
+        System.gc();
+        Thread.sleep(500);
+        LeakDetector.report(System.out);
+        System.out.println(ResourceMetrics.summary());
+    }
+}
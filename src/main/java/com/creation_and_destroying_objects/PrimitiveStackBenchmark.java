@@ -0,0 +1,190 @@
+package com.creation_and_destroying_objects;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation benchmark: {@link IntStack}, {@link LongStack} and {@link DoubleStack}
+ * (one value at a time and in bulk) against the boxed {@link CorrectedStack}, {@link Stack} and
+ * the fixed-capacity generic {@link com.generics.item_29_favor_generic_types.Stack} from item 29.
+ *
+ * Each operation pushes a batch of {@value #BATCH} values and pops them all again. Int values
+ * start above the Integer cache, so boxing really allocates, as it would for arbitrary data.
+ * Reports millions of elements per second (one push plus one pop each) and bytes allocated per
+ * element, read from the JVM's per-thread allocation counter.
+ *
+ * Run with: java -cp target/classes com.creation_and_destroying_objects.PrimitiveStackBenchmark
+ */
+public class PrimitiveStackBenchmark {
+    private static final int BATCH = 1024;
+    private static final int VALUE_OFFSET = 1000;
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 1000;
+
+    private static volatile long sink;
+
+    /**
+     * One batch of pushes and pops; returns a checksum so the work cannot be eliminated.
+     */
+    private interface Workload {
+        long run();
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%-26s %14s %16s%n", "stack", "M elements/s", "bytes/element");
+
+        IntStack intStack = new IntStack();
+        int[] ints = new int[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            ints[i] = VALUE_OFFSET + i;
+        }
+        run("IntStack", () -> {
+            for (int i = 0; i < BATCH; i++) {
+                intStack.push(VALUE_OFFSET + i);
+            }
+            long sum = 0;
+            for (int i = 0; i < BATCH; i++) {
+                sum += intStack.pop();
+            }
+            return sum;
+        });
+        run("IntStack bulk", () -> {
+            intStack.pushAll(ints);
+            intStack.popInto(ints);
+            return ints[0];
+        });
+        CorrectedStack<Integer> boxedInts = new CorrectedStack<>();
+        run("CorrectedStack<Integer>", () -> {
+            for (int i = 0; i < BATCH; i++) {
+                boxedInts.push(VALUE_OFFSET + i);
+            }
+            long sum = 0;
+            for (int i = 0; i < BATCH; i++) {
+                sum += boxedInts.pop();
+            }
+            return sum;
+        });
+        Stack<Integer> leakyInts = new Stack<>();
+        run("Stack<Integer>", () -> {
+            for (int i = 0; i < BATCH; i++) {
+                leakyInts.push(VALUE_OFFSET + i);
+            }
+            long sum = 0;
+            for (int i = 0; i < BATCH; i++) {
+                sum += leakyInts.pop();
+            }
+            return sum;
+        });
+        com.generics.item_29_favor_generic_types.Stack<Integer> genericInts =
+                new com.generics.item_29_favor_generic_types.Stack<>(BATCH);
+        run("item29.Stack<Integer>", () -> {
+            for (int i = 0; i < BATCH; i++) {
+                genericInts.push(VALUE_OFFSET + i);
+            }
+            long sum = 0;
+            for (int i = 0; i < BATCH; i++) {
+                sum += genericInts.pop();
+            }
+            return sum;
+        });
+
+        LongStack longStack = new LongStack();
+        long[] longs = new long[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            longs[i] = VALUE_OFFSET + i;
+        }
+        run("LongStack", () -> {
+            for (int i = 0; i < BATCH; i++) {
+                longStack.push(VALUE_OFFSET + i);
+            }
+            long sum = 0;
+            for (int i = 0; i < BATCH; i++) {
+                sum += longStack.pop();
+            }
+            return sum;
+        });
+        run("LongStack bulk", () -> {
+            longStack.pushAll(longs);
+            longStack.popInto(longs);
+            return longs[0];
+        });
+        CorrectedStack<Long> boxedLongs = new CorrectedStack<>();
+        run("CorrectedStack<Long>", () -> {
+            for (int i = 0; i < BATCH; i++) {
+                boxedLongs.push((long) VALUE_OFFSET + i);
+            }
+            long sum = 0;
+            for (int i = 0; i < BATCH; i++) {
+                sum += boxedLongs.pop();
+            }
+            return sum;
+        });
+
+        DoubleStack doubleStack = new DoubleStack();
+        double[] doubles = new double[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            doubles[i] = i * 0.5;
+        }
+        run("DoubleStack", () -> {
+            for (int i = 0; i < BATCH; i++) {
+                doubleStack.push(i * 0.5);
+            }
+            double sum = 0;
+            for (int i = 0; i < BATCH; i++) {
+                sum += doubleStack.pop();
+            }
+            return (long) sum;
+        });
+        run("DoubleStack bulk", () -> {
+            doubleStack.pushAll(doubles);
+            doubleStack.popInto(doubles);
+            return (long) doubles[0];
+        });
+        CorrectedStack<Double> boxedDoubles = new CorrectedStack<>();
+        run("CorrectedStack<Double>", () -> {
+            for (int i = 0; i < BATCH; i++) {
+                boxedDoubles.push(i * 0.5);
+            }
+            double sum = 0;
+            for (int i = 0; i < BATCH; i++) {
+                sum += boxedDoubles.pop();
+            }
+            return (long) sum;
+        });
+    }
+
+    private static void run(String name, Workload workload) {
+        long warmupEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+        long checksum = 0;
+        while (System.nanoTime() < warmupEnd) {
+            checksum += workload.run();
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long measureEnd = start + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+        long batches = 0;
+        long now;
+        do {
+            checksum += workload.run();
+            batches++;
+        } while ((now = System.nanoTime()) < measureEnd);
+        long allocated = allocatedBytes() - allocatedBefore;
+        sink = checksum;
+
+        long elements = batches * BATCH;
+        double millionsPerSecond = elements / ((now - start) / 1e9) / 1_000_000;
+        String bytesPerElement = allocated < 0 ? "n/a" : String.format("%.2f", (double) allocated / elements);
+        System.out.printf("%-26s %14.1f %16s%n", name, millionsPerSecond, bytesPerElement);
+    }
+
+    // HotSpot's per-thread allocation counter; -1 where the JVM does not provide it
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
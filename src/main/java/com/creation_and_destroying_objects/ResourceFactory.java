@@ -1,5 +1,19 @@
 package com.creation_and_destroying_objects;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import java.util.List;
 import java.util.ArrayList;
@@ -19,6 +33,18 @@ import java.util.ArrayList;
  * 4. Allow for different resource implementations
  */
 public class ResourceFactory {
+    // Virtual threads when the runtime has them (JDK 21+), otherwise a cached pool of daemon threads
+    private static final Executor DEFAULT_ASYNC_EXECUTOR = createDefaultAsyncExecutor();
+    private static final int DEFAULT_ASYNC_CONCURRENCY = Runtime.getRuntime().availableProcessors();
+
+    // One factory per resource class, built on first use and then shared
+    private static final ClassValue<ResourceFactory> FACTORIES_BY_CLASS = new ClassValue<>() {
+        @Override
+        protected ResourceFactory computeValue(Class<?> type) {
+            return new ResourceFactory(constructorSupplier(type.asSubclass(Resource.class)));
+        }
+    };
+
     private final Supplier<? extends Resource> resourceSupplier;
 
     /**
@@ -35,6 +61,66 @@ public class ResourceFactory {
         this.resourceSupplier = resourceSupplier;
     }
 
+    /**
+     * Returns the factory for a resource class, creating its supplier on first use.
+     * The supplier is spun once through LambdaMetafactory from the class's no-arg constructor,
+     * so it is equivalent to writing {@code Type::new}: no reflection on the creation path and
+     * the constructor call can be inlined. Factories are cached per class in a ClassValue,
+     * which does not keep the class (or its class loader) reachable.
+     *
+     * @param type the resource class; must have an accessible no-arg constructor
+     * @return the shared factory for {@code type}
+     * @throws IllegalArgumentException if {@code type} is abstract or has no no-arg constructor
+     */
+    public static ResourceFactory forClass(Class<? extends Resource> type) {
+        // asSubclass rejects non-Resource classes passed through raw or unchecked calls
+        return FACTORIES_BY_CLASS.get(type.asSubclass(Resource.class));
+    }
+
+    /**
+     * Resolves a resource class by name (e.g. from configuration) and returns its factory.
+     * @param className the fully qualified name of a Resource subclass
+     * @return the shared factory for that class
+     * @throws IllegalArgumentException if the class cannot be found or is not a Resource
+     * @see #forClass(Class)
+     */
+    public static ResourceFactory forClassName(String className) {
+        Class<?> type;
+        try {
+            type = Class.forName(className, false, ResourceFactory.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown resource class: " + className, e);
+        }
+        if (!Resource.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException(className + " is not a " + Resource.class.getName());
+        }
+        return forClass(type.asSubclass(Resource.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<? extends Resource> constructorSupplier(Class<? extends Resource> type) {
+        if (Modifier.isAbstract(type.getModifiers())) {
+            throw new IllegalArgumentException("Cannot instantiate abstract resource class: " + type.getName());
+        }
+        try {
+            // A lookup with private access in the target's package, so package-private types work too
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    MethodType.methodType(type));
+            return (Supplier<? extends Resource>) site.getTarget().invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("No accessible no-arg constructor on " + type.getName(), e);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create a supplier for " + type.getName(), e);
+        }
+    }
+
     /**
      * Creates a new resource using the provided supplier.
      * @return a new resource instance
@@ -69,21 +155,237 @@ public class ResourceFactory {
         }
         return resources;
     }
+
+    /**
+     * Creates a list of resources asynchronously, fanning the supplier out across the default executor.
+     * Uses virtual threads when the runtime supports them, and at most one task per available processor.
+     * @param count the number of resources to create
+     * @return a future completed with the resources in creation-index order
+     * @see #createResourceListAsync(int, Executor, int)
+     */
+    public CompletableFuture<List<Resource>> createResourceListAsync(int count) {
+        return createResourceListAsync(count, DEFAULT_ASYNC_EXECUTOR, DEFAULT_ASYNC_CONCURRENCY);
+    }
+
+    /**
+     * Creates a list of resources asynchronously on the given executor.
+     * At most {@code maxConcurrency} supplier calls run at once; each worker claims the next
+     * index until the batch is exhausted, so the result keeps index order regardless of
+     * which worker created which resource.
+     *
+     * The batch stops claiming new indices as soon as the supplier fails or the returned future
+     * is cancelled. Resources that were already created are then closed if they implement
+     * AutoCloseable, so a failed or cancelled batch does not leak them. A failure completes the
+     * future with a {@link BatchCreationException} that reports how many resources were created.
+     *
+     * @param count the number of resources to create
+     * @param executor the executor that runs the supplier
+     * @param maxConcurrency the maximum number of supplier calls in flight
+     * @return a future completed with the resources in creation-index order
+     */
+    public CompletableFuture<List<Resource>> createResourceListAsync(int count, Executor executor, int maxConcurrency) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        return new AsyncBatch(count, this.resourceSupplier).start(executor, maxConcurrency);
+    }
+
+    /**
+     * Array counterpart of {@link #createResourceListAsync(int, Executor, int)}.
+     * @param count the number of resources to create
+     * @param executor the executor that runs the supplier
+     * @param maxConcurrency the maximum number of supplier calls in flight
+     * @return a future completed with an array of new resource instances
+     */
+    public CompletableFuture<Resource[]> createResourcesAsync(int count, Executor executor, int maxConcurrency) {
+        return createResourceListAsync(count, executor, maxConcurrency)
+                .thenApply(resources -> resources.toArray(new Resource[0]));
+    }
+
+    /**
+     * Returns a builder for a pool that creates its resources with this factory's supplier.
+     * Use the pool instead of {@link #createResource()} when resources are requested at a high rate
+     * and can be reused after the caller is done with them.
+     * @return a pool builder backed by this factory's supplier
+     */
+    public ResourcePool.Builder<Resource> pooled() {
+        return ResourcePool.builder(this.resourceSupplier);
+    }
+
+    private static Executor createDefaultAsyncExecutor() {
+        try {
+            // Looked up reflectively so the project still compiles for older release targets
+            return (Executor) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (Throwable e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "resource-factory-async");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Thrown (as the cause of a failed future) when an asynchronous batch could not be completed.
+     * Any resources created before the failure have already been released.
+     */
+    public static class BatchCreationException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int requested;
+        private final int created;
+
+        BatchCreationException(int requested, int created, Throwable cause) {
+            super("Created " + created + " of " + requested + " resources before the supplier failed", cause);
+            this.requested = requested;
+            this.created = created;
+        }
+
+        public int getRequested() {
+            return this.requested;
+        }
+
+        public int getCreated() {
+            return this.created;
+        }
+    }
+
+    /**
+     * State of one asynchronous batch: workers claim indices from a shared counter and
+     * the last worker to finish completes (or cleans up) the batch.
+     */
+    private static class AsyncBatch {
+        private final Resource[] resources;
+        private final Supplier<? extends Resource> resourceSupplier;
+        private final CompletableFuture<List<Resource>> result = new CompletableFuture<>();
+        private final AtomicInteger nextIndex = new AtomicInteger();
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        AsyncBatch(int count, Supplier<? extends Resource> resourceSupplier) {
+            this.resources = new Resource[count];
+            this.resourceSupplier = resourceSupplier;
+        }
+
+        CompletableFuture<List<Resource>> start(Executor executor, int maxConcurrency) {
+            int workers = Math.min(maxConcurrency, this.resources.length);
+            if (workers == 0) {
+                this.result.complete(new ArrayList<>());
+                return this.result;
+            }
+            this.activeWorkers.set(workers);
+            for (int i = 0; i < workers; i++) {
+                try {
+                    executor.execute(this::work);
+                } catch (RuntimeException e) {
+                    // Rejected: count this worker as failed so the batch still terminates
+                    this.failure.compareAndSet(null, e);
+                    finishWorker();
+                }
+            }
+            return this.result;
+        }
+
+        private void work() {
+            try {
+                int index;
+                while (this.failure.get() == null && !this.result.isDone()
+                        && (index = this.nextIndex.getAndIncrement()) < this.resources.length) {
+                    this.resources[index] = this.resourceSupplier.get();
+                }
+            } catch (Throwable e) {
+                this.failure.compareAndSet(null, e);
+            } finally {
+                finishWorker();
+            }
+        }
+
+        private void finishWorker() {
+            if (this.activeWorkers.decrementAndGet() != 0) {
+                return;
+            }
+            // Last worker out: the decrement orders every other worker's writes before these reads
+            Throwable cause = this.failure.get();
+            // complete() loses to a concurrent cancel(), in which case the resources are released below
+            if (cause == null && this.result.complete(Arrays.asList(this.resources))) {
+                return;
+            }
+            int created = releaseCreated(cause);
+            if (cause != null) {
+                this.result.completeExceptionally(new BatchCreationException(this.resources.length, created, cause));
+            }
+        }
+
+        private int releaseCreated(Throwable cause) {
+            int created = 0;
+            for (int i = 0; i < this.resources.length; i++) {
+                Resource resource = this.resources[i];
+                if (resource == null) {
+                    continue;
+                }
+                created++;
+                this.resources[i] = null;
+                if (resource instanceof AutoCloseable) {
+                    try {
+                        ((AutoCloseable) resource).close();
+                    } catch (Exception e) {
+                        if (cause != null) {
+                            cause.addSuppressed(e);
+                        }
+                    }
+                }
+            }
+            return created;
+        }
+    }
 }
 
 /**
  * Base Resource class that could be created by the factory.
  */
 class Resource {
-    private final String id;
+    private static volatile IdGenerator idGenerator = IdGenerator.timeOrdered();
+
+    private final ResourceId id;
     private final long creationTime;
 
     public Resource() {
-        this.id = java.util.UUID.randomUUID().toString();
+        this(idGenerator);
+    }
+
+    /**
+     * Constructor for subclasses that want a specific id source instead of the global one.
+     * @param idGenerator the generator that supplies this resource's id
+     */
+    protected Resource(IdGenerator idGenerator) {
+        this.id = idGenerator.nextId();
         this.creationTime = System.currentTimeMillis();
     }
 
+    /**
+     * Replaces the id source used by the no-arg constructor.
+     * @param generator the new generator, e.g. {@link IdGenerator#randomUuid()}
+     */
+    static void useIdGenerator(IdGenerator generator) {
+        idGenerator = Objects.requireNonNull(generator);
+    }
+
+    /**
+     * @return the id rendered as a string; rendered lazily on first call
+     */
     public String getId() {
+        return this.id.toString();
+    }
+
+    /**
+     * @return the id in its primitive-backed form, without rendering a string
+     */
+    public ResourceId getResourceId() {
         return this.id;
     }
 
@@ -157,5 +459,31 @@ class ResourceFactoryExample {
         List<Resource> resourceList = baseFactory.createResourceList(2);
         System.out.println("Resource List:");
         resourceList.forEach(System.out::println);
+
+        // Example 6: Resolving the factory from a class token or a configured class name
+        Resource byClass = ResourceFactory.forClass(CustomResource.class).createResource();
+        System.out.println("By Class: " + byClass);
+        Resource byName = ResourceFactory.forClassName("com.creation_and_destroying_objects.Resource").createResource();
+        System.out.println("By Class Name: " + byName);
+
+        // Example 7: Creating resources asynchronously, results stay in order
+        List<Resource> asyncList = baseFactory.createResourceListAsync(4).join();
+        System.out.println("Async Resource List:");
+        asyncList.forEach(System.out::println);
+
+        // Example 8: A failing supplier fails the whole batch and reports progress
+        AtomicInteger calls = new AtomicInteger();
+        ResourceFactory flakyFactory = new ResourceFactory(() -> {
+            if (calls.incrementAndGet() == 3) {
+                throw new IllegalStateException("supplier failed");
+            }
+            return new Resource();
+        });
+        flakyFactory.createResourceListAsync(5)
+                .exceptionally(e -> {
+                    System.out.println("Async batch failed: " + e.getMessage());
+                    return null;
+                })
+                .join();
     }
 } 
\ No newline at end of file
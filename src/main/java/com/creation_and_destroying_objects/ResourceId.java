@@ -0,0 +1,69 @@
+package com.creation_and_destroying_objects;
+
+import java.util.UUID;
+
+/**
+ * A 128-bit resource identifier stored as two primitive longs.
+ * Compared with keeping a UUID string per resource:
+ * 1. No String is allocated unless {@link #toString()} is actually called
+ * 2. equals/hashCode/compareTo work on the two longs directly
+ * 3. Ordering is unsigned on (high, low), so time-ordered generators produce sortable ids
+ *
+ * The text form is the familiar 8-4-4-4-12 hex layout, which also sorts in id order.
+ */
+public final class ResourceId implements Comparable<ResourceId> {
+    private final long high;
+    private final long low;
+    // Lazily rendered; racy single-check is fine because the result is always the same
+    private String text;
+
+    public ResourceId(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public long getHigh() {
+        return this.high;
+    }
+
+    public long getLow() {
+        return this.low;
+    }
+
+    /**
+     * @return the millisecond timestamp for ids produced by a time-ordered generator
+     */
+    public long getTimestamp() {
+        return this.high >>> 16;
+    }
+
+    @Override
+    public int compareTo(ResourceId other) {
+        int result = Long.compareUnsigned(this.high, other.high);
+        return result != 0 ? result : Long.compareUnsigned(this.low, other.low);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ResourceId that = (ResourceId) o;
+        return this.high == that.high && this.low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        long hilo = this.high ^ this.low;
+        return ((int) (hilo >> 32)) ^ (int) hilo;
+    }
+
+    @Override
+    public String toString() {
+        String result = this.text;
+        if (result == null) {
+            result = new UUID(this.high, this.low).toString();
+            this.text = result;
+        }
+        return result;
+    }
+}
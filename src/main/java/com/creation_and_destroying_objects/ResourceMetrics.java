@@ -0,0 +1,236 @@
+package com.creation_and_destroying_objects;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * In-process metrics and JDK Flight Recorder events for the resource lifecycle.
+ * The events line up with the GC events in the same recording, so Cleaner activity
+ * can be correlated with the pauses that discovered the unreachable resources:
+ * 1. ResourceCreated  - a Cleaner-managed resource was created
+ * 2. ResourceClosed   - it was closed explicitly (the intended path)
+ * 3. ResourceCleaned  - the Cleaner cleaned it up after it became unreachable
+ * 4. FinalizerRun     - a finalizer (e.g. in FinalizerGuardian) did cleanup work
+ *
+ * For ResourceCleaned, the time since the end of the most recent GC approximates how long the
+ * resource waited between being found unreachable and being cleaned.
+ *
+ * The same counters are available without JFR through the static getters, for polling.
+ */
+public final class ResourceMetrics {
+    private static final LongAdder created = new LongAdder();
+    private static final LongAdder closed = new LongAdder();
+    private static final LongAdder cleaned = new LongAdder();
+    private static final LongAdder finalized = new LongAdder();
+    private static final LongAdder totalCleanupLagMillis = new LongAdder();
+    private static final LongAccumulator maxCleanupLagMillis = new LongAccumulator(Math::max, 0);
+
+    // System.nanoTime() at the end of the most recent GC, kept current by GC notifications
+    private static volatile long lastGcEndNanos = Long.MIN_VALUE;
+
+    static {
+        listenForGcEnd();
+    }
+
+    private ResourceMetrics() {
+    }
+
+    /**
+     * Records a resource creation.
+     * @return the creation timestamp to pass back to {@link #released}
+     */
+    static long created(Class<?> type, String name) {
+        created.increment();
+        ResourceCreatedEvent event = new ResourceCreatedEvent();
+        if (event.shouldCommit()) {
+            event.resourceType = type.getName();
+            event.resourceName = name;
+            event.commit();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a resource release, from its cleanup action.
+     * @param explicit true if close() triggered the cleanup, false if the Cleaner did
+     */
+    static void released(Class<?> type, String name, long createdNanos, boolean explicit) {
+        long lifetime = System.nanoTime() - createdNanos;
+        if (explicit) {
+            closed.increment();
+            ResourceClosedEvent event = new ResourceClosedEvent();
+            if (event.shouldCommit()) {
+                event.resourceType = type.getName();
+                event.resourceName = name;
+                event.lifetime = lifetime;
+                event.commit();
+            }
+            return;
+        }
+
+        long lagMillis = millisSinceLastGc();
+        cleaned.increment();
+        if (lagMillis >= 0) {
+            totalCleanupLagMillis.add(lagMillis);
+            maxCleanupLagMillis.accumulate(lagMillis);
+        }
+        ResourceCleanedEvent event = new ResourceCleanedEvent();
+        if (event.shouldCommit()) {
+            event.resourceType = type.getName();
+            event.resourceName = name;
+            event.lifetime = lifetime;
+            event.sinceLastGc = lagMillis;
+            event.commit();
+        }
+    }
+
+    static void finalized(Class<?> type) {
+        finalized.increment();
+        FinalizerRunEvent event = new FinalizerRunEvent();
+        if (event.shouldCommit()) {
+            event.resourceType = type.getName();
+            event.commit();
+        }
+    }
+
+    private static long millisSinceLastGc() {
+        long lastGcEnd = lastGcEndNanos;
+        return lastGcEnd == Long.MIN_VALUE ? -1 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastGcEnd);
+    }
+
+    /**
+     * Tracks GC end times from notifications, so a cleanup only reads a volatile instead of
+     * querying every collector's MXBean. Notifications arrive asynchronously, so a cleanup that
+     * runs before its GC's notification is measured from the previous GC.
+     */
+    private static void listenForGcEnd() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(collector instanceof NotificationEmitter)) {
+                continue;
+            }
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                // GcInfo times are milliseconds since JVM start; convert the end time to the nanoTime scale
+                long millisAgo = ManagementFactory.getRuntimeMXBean().getUptime() - info.getGcInfo().getEndTime();
+                lastGcEndNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisAgo));
+            }, null, null);
+        }
+    }
+
+    public static long getCreatedCount() {
+        return created.sum();
+    }
+
+    public static long getClosedCount() {
+        return closed.sum();
+    }
+
+    public static long getCleanedCount() {
+        return cleaned.sum();
+    }
+
+    public static long getFinalizedCount() {
+        return finalized.sum();
+    }
+
+    /**
+     * @return resources created and neither closed nor cleaned yet
+     */
+    public static long getLiveCount() {
+        return getCreatedCount() - getClosedCount() - getCleanedCount();
+    }
+
+    public static long getMaxCleanupLagMillis() {
+        return maxCleanupLagMillis.get();
+    }
+
+    public static double getAverageCleanupLagMillis() {
+        long count = getCleanedCount();
+        return count == 0 ? 0 : (double) totalCleanupLagMillis.sum() / count;
+    }
+
+    public static String summary() {
+        return "ResourceMetrics{" +
+                "created=" + getCreatedCount() +
+                ", live=" + getLiveCount() +
+                ", closed=" + getClosedCount() +
+                ", cleaned=" + getCleanedCount() +
+                ", finalized=" + getFinalizedCount() +
+                ", maxCleanupLagMillis=" + getMaxCleanupLagMillis() +
+                '}';
+    }
+}
+
+@Name("com.creation_and_destroying_objects.ResourceCreated")
+@Label("Resource Created")
+@Category({"Java in Practice", "Resources"})
+class ResourceCreatedEvent extends Event {
+    @Label("Resource Type")
+    String resourceType;
+
+    @Label("Resource Name")
+    String resourceName;
+}
+
+@Name("com.creation_and_destroying_objects.ResourceClosed")
+@Label("Resource Closed")
+@Description("A resource was released explicitly through close()")
+@Category({"Java in Practice", "Resources"})
+class ResourceClosedEvent extends Event {
+    @Label("Resource Type")
+    String resourceType;
+
+    @Label("Resource Name")
+    String resourceName;
+
+    @Label("Lifetime")
+    @Timespan(Timespan.NANOSECONDS)
+    long lifetime;
+}
+
+@Name("com.creation_and_destroying_objects.ResourceCleaned")
+@Label("Resource Cleaned")
+@Description("A resource was released by the Cleaner because close() was never called")
+@Category({"Java in Practice", "Resources"})
+class ResourceCleanedEvent extends Event {
+    @Label("Resource Type")
+    String resourceType;
+
+    @Label("Resource Name")
+    String resourceName;
+
+    @Label("Lifetime")
+    @Timespan(Timespan.NANOSECONDS)
+    long lifetime;
+
+    @Label("Time Since Last GC")
+    @Description("Approximate lag between the GC that found the resource unreachable and its cleanup; -1 if unknown")
+    @Timespan(Timespan.MILLISECONDS)
+    long sinceLastGc;
+}
+
+@Name("com.creation_and_destroying_objects.FinalizerRun")
+@Label("Finalizer Run")
+@Category({"Java in Practice", "Resources"})
+class FinalizerRunEvent extends Event {
+    @Label("Resource Type")
+    String resourceType;
+}
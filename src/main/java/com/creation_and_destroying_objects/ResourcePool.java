@@ -0,0 +1,371 @@
+package com.creation_and_destroying_objects;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, lock-free pool of resources built on the same Supplier used by {@link ResourceFactory}.
+ * Pooling is useful when:
+ * 1. Creating a resource is expensive compared to using it
+ * 2. Resources are short-lived but requested at a high rate
+ * 3. The number of live resources must be capped
+ *
+ * Design:
+ * 1. The free-list is a fixed array of slots, each holding one resource
+ * 2. A slot is claimed and released with a single CAS on a stamped state - no locks are taken
+ * 3. Every claim bumps the slot's stamp, and each {@link Lease} remembers the stamp it was handed,
+ *    so a stale or repeated close can never release a slot that has since been lent to someone else
+ * 4. Borrowers start scanning at a random slot to spread contention across the array
+ *
+ * Steady-state borrowing creates no resources, but it is not allocation-free: each borrow
+ * allocates one small Lease (a slot reference and a stamp). A handle per borrow is what makes
+ * a stale close harmless; a lease shared by every borrower of a slot could not tell them apart.
+ *
+ * Eviction is optional and happens lazily on borrow (or explicitly via {@link #evict()}):
+ * - max lifetime is measured from {@link Resource#getCreationTime()}
+ * - idle timeout is measured from the last time the lease was returned
+ *
+ * @param <R> the type of resource held by the pool
+ */
+public class ResourcePool<R extends Resource> {
+    private final Supplier<? extends R> resourceSupplier;
+    private final AtomicReferenceArray<Slot<R>> slots;
+    private final long maxLifetimeMillis;
+    private final long idleTimeoutMillis;
+    private final long maxWaitNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    private ResourcePool(Builder<R> builder) {
+        this.resourceSupplier = builder.resourceSupplier;
+        this.slots = new AtomicReferenceArray<>(builder.maxSize);
+        this.maxLifetimeMillis = builder.maxLifetimeMillis;
+        this.idleTimeoutMillis = builder.idleTimeoutMillis;
+        this.maxWaitNanos = builder.maxWaitNanos;
+    }
+
+    public static <R extends Resource> Builder<R> builder(Supplier<? extends R> resourceSupplier) {
+        return new Builder<>(resourceSupplier);
+    }
+
+    /**
+     * Borrows a resource from the pool, creating one if a slot is still empty.
+     * If every slot is in use, waits up to the configured max wait for a lease to be returned.
+     *
+     * @return a lease that returns the resource to the pool when closed
+     * @throws IllegalStateException if no resource became available within the max wait
+     */
+    public Lease<R> borrow() {
+        Lease<R> lease = tryBorrow();
+        if (lease != null) {
+            return lease;
+        }
+
+        // Pool exhausted: spin briefly, then park in short intervals until a lease is returned
+        long start = System.nanoTime();
+        int spins = 0;
+        try {
+            while (true) {
+                lease = tryBorrow();
+                if (lease != null) {
+                    return lease;
+                }
+                if (System.nanoTime() - start >= this.maxWaitNanos) {
+                    throw new IllegalStateException("Pool exhausted: no resource available within "
+                            + TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos) + " ms");
+                }
+                if (++spins < 64) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                }
+            }
+        } finally {
+            this.waits.increment();
+            this.waitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private Lease<R> tryBorrow() {
+        int length = this.slots.length();
+        int start = ThreadLocalRandom.current().nextInt(length);
+
+        // First pass: reuse an existing free resource
+        for (int i = 0; i < length; i++) {
+            Slot<R> slot = this.slots.get((start + i) % length);
+            long stamp = slot == null ? -1 : slot.tryClaim();
+            if (stamp >= 0) {
+                if (isExpired(slot, System.currentTimeMillis())) {
+                    this.evictions.increment();
+                    this.misses.increment();
+                    slot.resource = createOrRelease(slot, stamp);
+                } else {
+                    this.hits.increment();
+                }
+                return new Lease<>(slot, stamp);
+            }
+        }
+
+        // Second pass: fill an empty slot with a new resource
+        for (int i = 0; i < length; i++) {
+            int index = (start + i) % length;
+            if (this.slots.get(index) == null) {
+                Slot<R> slot = new Slot<>();
+                if (this.slots.compareAndSet(index, null, slot)) {
+                    this.misses.increment();
+                    try {
+                        slot.resource = this.resourceSupplier.get();
+                    } catch (RuntimeException e) {
+                        // Give the slot back so a failing supplier does not shrink the pool
+                        this.slots.set(index, null);
+                        throw e;
+                    }
+                    return new Lease<>(slot, Slot.FIRST_CLAIM);
+                }
+            }
+        }
+        return null;
+    }
+
+    private R createOrRelease(Slot<R> slot, long stamp) {
+        try {
+            return this.resourceSupplier.get();
+        } catch (RuntimeException e) {
+            slot.state.set(stamp + 1);
+            throw e;
+        }
+    }
+
+    private boolean isExpired(Slot<R> slot, long now) {
+        if (this.maxLifetimeMillis > 0 && now - slot.resource.getCreationTime() >= this.maxLifetimeMillis) {
+            return true;
+        }
+        return this.idleTimeoutMillis > 0 && now - slot.lastReturnedMillis >= this.idleTimeoutMillis;
+    }
+
+    /**
+     * Replaces every free resource that has exceeded its max lifetime or idle timeout.
+     * Borrowing already evicts lazily; this is for callers that want to refresh the pool eagerly.
+     *
+     * @return the number of resources evicted
+     */
+    public int evict() {
+        int evicted = 0;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < this.slots.length(); i++) {
+            Slot<R> slot = this.slots.get(i);
+            long stamp = slot == null ? -1 : slot.tryClaim();
+            if (stamp >= 0) {
+                if (isExpired(slot, now)) {
+                    slot.resource = createOrRelease(slot, stamp);
+                    slot.lastReturnedMillis = now;
+                    evicted++;
+                }
+                slot.state.set(stamp + 1);
+            }
+        }
+        this.evictions.add(evicted);
+        return evicted;
+    }
+
+    public int getMaxSize() {
+        return this.slots.length();
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * @return the number of borrows that found the pool exhausted and had to wait
+     */
+    public long getWaitCount() {
+        return this.waits.sum();
+    }
+
+    public long getTotalWaitNanos() {
+        return this.waitNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ResourcePool{" +
+                "maxSize=" + getMaxSize() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                ", waits=" + getWaitCount() +
+                ", totalWaitMillis=" + TimeUnit.NANOSECONDS.toMillis(getTotalWaitNanos()) +
+                '}';
+    }
+
+    /**
+     * One entry of the pool. The state is a stamp: even while the slot is free, odd while it is lent out.
+     * Claiming moves an even stamp to the next odd one and returning moves it on to the next even one,
+     * so every borrow of the slot sees a stamp no earlier borrow ever held.
+     * While a return is recording its timestamp the state is parked at the negated stamp,
+     * which no borrower can claim.
+     */
+    private static final class Slot<R extends Resource> {
+        private static final long FIRST_CLAIM = 1;
+
+        private final AtomicLong state = new AtomicLong(FIRST_CLAIM);
+        private volatile R resource;
+        private volatile long lastReturnedMillis;
+
+        /**
+         * @return the stamp of the new claim, or -1 if the slot is not free
+         */
+        private long tryClaim() {
+            long current = this.state.get();
+            if (current >= 0 && (current & 1) == 0 && this.state.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A borrowed resource. Closing the lease returns the resource to the pool,
+     * which makes it usable with try-with-resources.
+     *
+     * A lease is bound to a single borrow: closing it twice, or closing it after the
+     * slot has been lent to someone else, is a no-op.
+     *
+     * @param <R> the type of the borrowed resource
+     */
+    public static final class Lease<R extends Resource> implements AutoCloseable {
+        private final Slot<R> slot;
+        private final long stamp;
+
+        private Lease(Slot<R> slot, long stamp) {
+            this.slot = slot;
+            this.stamp = stamp;
+        }
+
+        public R get() {
+            if (this.slot.state.get() != this.stamp) {
+                throw new IllegalStateException("Lease has already been returned to the pool");
+            }
+            return this.slot.resource;
+        }
+
+        @Override
+        public void close() {
+            // Only the close that wins the CAS for this borrow's stamp returns the slot
+            if (this.slot.state.compareAndSet(this.stamp, -this.stamp)) {
+                this.slot.lastReturnedMillis = System.currentTimeMillis();
+                this.slot.state.set(this.stamp + 1);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Lease{" +
+                    "resource=" + this.slot.resource +
+                    ", inUse=" + (this.slot.state.get() == this.stamp) +
+                    '}';
+        }
+    }
+
+    /**
+     * Builder for {@link ResourcePool}. Only the supplier is required;
+     * eviction is disabled unless a max lifetime or idle timeout is set.
+     *
+     * @param <R> the type of resource held by the pool
+     */
+    public static class Builder<R extends Resource> {
+        private final Supplier<? extends R> resourceSupplier;
+        private int maxSize = Runtime.getRuntime().availableProcessors();
+        private long maxLifetimeMillis;
+        private long idleTimeoutMillis;
+        private long maxWaitNanos = TimeUnit.SECONDS.toNanos(30);
+
+        private Builder(Supplier<? extends R> resourceSupplier) {
+            this.resourceSupplier = Objects.requireNonNull(resourceSupplier);
+        }
+
+        public Builder<R> maxSize(int maxSize) {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+            }
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        public Builder<R> maxLifetime(long duration, TimeUnit unit) {
+            this.maxLifetimeMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder<R> idleTimeout(long duration, TimeUnit unit) {
+            this.idleTimeoutMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder<R> maxWait(long duration, TimeUnit unit) {
+            this.maxWaitNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        public ResourcePool<R> build() {
+            return new ResourcePool<>(this);
+        }
+    }
+}
+
+/**
+ * Example usage of ResourcePool showing reuse, eviction and exhaustion.
+ */
+class ResourcePoolExample {
+    public static void main(String[] args) throws InterruptedException {
+        ResourcePool<Resource> pool = new ResourceFactory(Resource::new).pooled()
+                .maxSize(2)
+                .maxLifetime(200, TimeUnit.MILLISECONDS)
+                .maxWait(100, TimeUnit.MILLISECONDS)
+                .build();
+
+        // Example 1: Repeated borrow/return reuses the same instance
+        for (int i = 0; i < 3; i++) {
+            try (ResourcePool.Lease<Resource> lease = pool.borrow()) {
+                System.out.println("Borrowed: " + lease.get());
+            }
+        }
+        System.out.println(pool);
+
+        // Example 2: After the max lifetime the resource is replaced on borrow
+        Thread.sleep(250);
+        try (ResourcePool.Lease<Resource> lease = pool.borrow()) {
+            System.out.println("Borrowed after expiry: " + lease.get());
+        }
+        System.out.println(pool);
+
+        // Example 3: Exhausting the pool makes the next borrow wait, then fail
+        try (ResourcePool.Lease<Resource> first = pool.borrow();
+             ResourcePool.Lease<Resource> second = pool.borrow()) {
+            System.out.println("Holding: " + first.get() + ", " + second.get());
+            pool.borrow();
+        } catch (IllegalStateException e) {
+            System.out.println("Expected: " + e.getMessage());
+        }
+        System.out.println(pool);
+    }
+}
@@ -0,0 +1,427 @@
+package com.creation_and_destroying_objects;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * A concurrent registry of live resources, indexed by {@link Resource#getResourceId()}.
+ *
+ * Compared with a ConcurrentHashMap keyed by the 36-char id string:
+ * 1. Keys are stored as two longs in a flat long[] (16 bytes per entry), not as String objects
+ * 2. Tables use open addressing with linear probing, so there are no per-entry map nodes
+ * 3. Lookups take no lock: they run under a StampedLock optimistic read and only retry
+ *    under a read lock if a writer raced with them
+ *
+ * The registry never keeps a resource alive. Values are held through WeakReferences, and
+ * entries whose resource has been collected are expunged from a ReferenceQueue on the next
+ * write to the same segment - the same mechanism WeakHashMap uses, and the opposite of the
+ * obsolete references that LeakyStack demonstrates.
+ *
+ * @param <R> the type of resource registered
+ */
+public class ResourceRegistry<R extends Resource> {
+    private static final int SEGMENT_COUNT = 16;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    // Tombstone for a removed slot, so probes for keys further along the chain still find them
+    private static final Object DELETED = new Object();
+
+    private final Segment<R>[] segments;
+
+    /**
+     * Receives registered ids as primitives, so iterating ids does not box or render strings.
+     */
+    @FunctionalInterface
+    public interface IdConsumer {
+        void accept(long high, long low);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ResourceRegistry() {
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            this.segments[i] = new Segment<>();
+        }
+    }
+
+    /**
+     * Registers a resource under its id, replacing any resource registered under the same id.
+     * @param resource the resource to register
+     */
+    public void register(R resource) {
+        ResourceId id = resource.getResourceId();
+        int hash = hash(id.getHigh(), id.getLow());
+        segmentFor(hash).put(id.getHigh(), id.getLow(), hash, resource);
+    }
+
+    public R get(long high, long low) {
+        int hash = hash(high, low);
+        return segmentFor(hash).get(high, low, hash);
+    }
+
+    public R get(ResourceId id) {
+        return get(id.getHigh(), id.getLow());
+    }
+
+    /**
+     * Looks up a resource by its string id, as returned from {@link Resource#getId()}.
+     * @param id the string form of the id
+     * @return the registered resource, or null if none is registered or it has been collected
+     * @throws IllegalArgumentException if the string is not a valid id
+     */
+    public R get(String id) {
+        UUID parsed = UUID.fromString(id);
+        return get(parsed.getMostSignificantBits(), parsed.getLeastSignificantBits());
+    }
+
+    /**
+     * Removes a resource's entry. Call this from the resource's close() so the
+     * registry only ever lists open resources.
+     * @param resource the resource to remove
+     * @return true if the resource was registered
+     */
+    public boolean remove(R resource) {
+        ResourceId id = resource.getResourceId();
+        int hash = hash(id.getHigh(), id.getLow());
+        return segmentFor(hash).remove(id.getHigh(), id.getLow(), hash, resource);
+    }
+
+    public boolean remove(ResourceId id) {
+        int hash = hash(id.getHigh(), id.getLow());
+        return segmentFor(hash).remove(id.getHigh(), id.getLow(), hash, null);
+    }
+
+    /**
+     * @return the number of entries, which may still include resources collected since the last write
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<R> segment : this.segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Applies the action to every live registered resource. Weakly consistent: each segment
+     * is visited under its read lock, but concurrent changes to other segments may or may not be seen.
+     * @param action the action to apply
+     */
+    public void forEach(Consumer<? super R> action) {
+        Objects.requireNonNull(action);
+        for (Segment<R> segment : this.segments) {
+            segment.forEach(action, null);
+        }
+    }
+
+    /**
+     * Applies the action to the id of every live registered resource without boxing.
+     * @param action the action to apply
+     */
+    public void forEachId(IdConsumer action) {
+        Objects.requireNonNull(action);
+        for (Segment<R> segment : this.segments) {
+            segment.forEach(null, action);
+        }
+    }
+
+    /**
+     * Expunges entries whose resources have been garbage collected, in every segment.
+     * Writes already do this per segment; this is for read-mostly registries.
+     */
+    public void expungeStaleEntries() {
+        for (Segment<R> segment : this.segments) {
+            segment.lockAndExpunge();
+        }
+    }
+
+    private Segment<R> segmentFor(int hash) {
+        // Top bits pick the segment; low bits pick the slot within it
+        return this.segments[hash >>> 28];
+    }
+
+    private static int hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Weak reference to a registered resource. Keeps its key so it can be found
+     * and removed when it is dequeued after the resource is collected.
+     */
+    private static final class Entry<R> extends WeakReference<R> {
+        final long high;
+        final long low;
+        final int hash;
+
+        Entry(R resource, long high, long low, int hash, ReferenceQueue<? super R> queue) {
+            super(resource, queue);
+            this.high = high;
+            this.low = low;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * The arrays of one segment, published together so an optimistic reader
+     * never sees keys and entries from different generations.
+     */
+    private static final class Table {
+        // keys[2 * slot] = high, keys[2 * slot + 1] = low
+        final long[] keys;
+        // null = never used, DELETED = tombstone, otherwise an Entry
+        final Object[] entries;
+
+        Table(int capacity) {
+            this.keys = new long[2 * capacity];
+            this.entries = new Object[capacity];
+        }
+    }
+
+    private static final class Segment<R> {
+        private final StampedLock lock = new StampedLock();
+        private final ReferenceQueue<R> queue = new ReferenceQueue<>();
+        private Table table = new Table(INITIAL_SEGMENT_CAPACITY);
+        private int size;
+        private int tombstones;
+
+        R get(long high, long low, int hash) {
+            long stamp = this.lock.tryOptimisticRead();
+            R result = find(this.table, high, low, hash);
+            if (this.lock.validate(stamp)) {
+                return result;
+            }
+            stamp = this.lock.readLock();
+            try {
+                return find(this.table, high, low, hash);
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private R find(Table table, long high, long low, int hash) {
+            int mask = table.entries.length - 1;
+            // Bounded by capacity so a torn optimistic read cannot loop forever
+            for (int i = 0, slot = hash & mask; i <= mask; i++, slot = (slot + 1) & mask) {
+                Object entry = table.entries[slot];
+                if (entry == null) {
+                    return null;
+                }
+                if (entry != DELETED && table.keys[2 * slot] == high && table.keys[2 * slot + 1] == low) {
+                    return ((Entry<R>) entry).get();
+                }
+            }
+            return null;
+        }
+
+        void put(long high, long low, int hash, R resource) {
+            long stamp = this.lock.writeLock();
+            try {
+                expungeStaleEntries();
+                if (4 * (this.size + this.tombstones + 1) > 3 * this.table.entries.length) {
+                    resize();
+                }
+                Table table = this.table;
+                int mask = table.entries.length - 1;
+                int firstTombstone = -1;
+                for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                    Object entry = table.entries[slot];
+                    if (entry == null) {
+                        int target = firstTombstone >= 0 ? firstTombstone : slot;
+                        if (firstTombstone >= 0) {
+                            this.tombstones--;
+                        }
+                        insert(table, target, high, low, hash, resource);
+                        this.size++;
+                        return;
+                    }
+                    if (entry == DELETED) {
+                        if (firstTombstone < 0) {
+                            firstTombstone = slot;
+                        }
+                    } else if (table.keys[2 * slot] == high && table.keys[2 * slot + 1] == low) {
+                        // Same id registered again: replace the reference in place
+                        ((Reference<?>) entry).clear();
+                        table.entries[slot] = new Entry<>(resource, high, low, hash, this.queue);
+                        return;
+                    }
+                }
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+        }
+
+        private void insert(Table table, int slot, long high, long low, int hash, R resource) {
+            table.keys[2 * slot] = high;
+            table.keys[2 * slot + 1] = low;
+            table.entries[slot] = new Entry<>(resource, high, low, hash, this.queue);
+        }
+
+        boolean remove(long high, long low, int hash, R expected) {
+            long stamp = this.lock.writeLock();
+            try {
+                expungeStaleEntries();
+                return removeSlot(high, low, hash, expected, null);
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Removes the slot for the key if it still holds the expected resource (when given)
+         * or the expected entry (when expunging). Must be called under the write lock.
+         */
+        @SuppressWarnings("unchecked")
+        private boolean removeSlot(long high, long low, int hash, R expectedResource, Entry<R> expectedEntry) {
+            Table table = this.table;
+            int mask = table.entries.length - 1;
+            for (int i = 0, slot = hash & mask; i <= mask; i++, slot = (slot + 1) & mask) {
+                Object entry = table.entries[slot];
+                if (entry == null) {
+                    return false;
+                }
+                if (entry != DELETED && table.keys[2 * slot] == high && table.keys[2 * slot + 1] == low) {
+                    Entry<R> current = (Entry<R>) entry;
+                    if ((expectedEntry != null && current != expectedEntry)
+                            || (expectedResource != null && current.get() != expectedResource)) {
+                        return false;
+                    }
+                    current.clear();
+                    table.entries[slot] = DELETED;
+                    this.size--;
+                    this.tombstones++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void expungeStaleEntries() {
+            Reference<? extends R> reference;
+            while ((reference = this.queue.poll()) != null) {
+                Entry<R> entry = (Entry<R>) reference;
+                removeSlot(entry.high, entry.low, entry.hash, null, entry);
+            }
+        }
+
+        void lockAndExpunge() {
+            long stamp = this.lock.writeLock();
+            try {
+                expungeStaleEntries();
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void resize() {
+            Table old = this.table;
+            // Grow only if live entries (not tombstones) need the room
+            int capacity = 4 * (this.size + 1) > old.entries.length ? old.entries.length * 2 : old.entries.length;
+            Table table = new Table(capacity);
+            int mask = capacity - 1;
+            int size = 0;
+            for (int i = 0; i < old.entries.length; i++) {
+                Object entry = old.entries[i];
+                if (entry == null || entry == DELETED || ((Entry<R>) entry).get() == null) {
+                    continue;
+                }
+                int slot = ((Entry<R>) entry).hash & mask;
+                while (table.entries[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table.keys[2 * slot] = old.keys[2 * i];
+                table.keys[2 * slot + 1] = old.keys[2 * i + 1];
+                table.entries[slot] = entry;
+                size++;
+            }
+            this.table = table;
+            this.size = size;
+            this.tombstones = 0;
+        }
+
+        int size() {
+            long stamp = this.lock.readLock();
+            try {
+                return this.size;
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(Consumer<? super R> resourceAction, IdConsumer idAction) {
+            long stamp = this.lock.readLock();
+            try {
+                Table table = this.table;
+                for (int slot = 0; slot < table.entries.length; slot++) {
+                    Object entry = table.entries[slot];
+                    if (entry == null || entry == DELETED) {
+                        continue;
+                    }
+                    R resource = ((Entry<R>) entry).get();
+                    if (resource == null) {
+                        continue;
+                    }
+                    if (resourceAction != null) {
+                        resourceAction.accept(resource);
+                    } else {
+                        idAction.accept(table.keys[2 * slot], table.keys[2 * slot + 1]);
+                    }
+                }
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+    }
+}
+
+/**
+ * Example usage of ResourceRegistry showing lookup, explicit removal and GC-driven removal.
+ */
+class ResourceRegistryExample {
+    public static void main(String[] args) throws InterruptedException {
+        ResourceRegistry<Resource> registry = new ResourceRegistry<>();
+        ResourceFactory factory = new ResourceFactory(Resource::new);
+
+        Resource kept = factory.createResource();
+        Resource removed = factory.createResource();
+        registry.register(kept);
+        registry.register(removed);
+        registerUnreferenced(registry, factory, 1000);
+        System.out.println("Registered: " + registry.size());
+
+        // Lookup by the string id, as it would arrive from a log line or request
+        System.out.println("Found by id: " + registry.get(kept.getId()));
+
+        // Explicit removal, e.g. from close()
+        registry.remove(removed);
+        System.out.println("After remove, lookup returns: " + registry.get(removed.getResourceId()));
+
+        // The 1000 unreferenced resources are not kept alive by the registry
+        System.gc();
+        Thread.sleep(500);
+        registry.expungeStaleEntries();
+        System.out.println("After GC: " + registry.size());
+
+        long[] idCount = new long[1];
+        registry.forEachId((high, low) -> idCount[0]++);
+        System.out.println("Ids visited without boxing: " + idCount[0]);
+    }
+
+    // Separate method so no local variable keeps the resources reachable after it returns
+    private static void registerUnreferenced(ResourceRegistry<Resource> registry, ResourceFactory factory, int count) {
+        for (Resource resource : factory.createResources(count)) {
+            registry.register(resource);
+        }
+    }
+}
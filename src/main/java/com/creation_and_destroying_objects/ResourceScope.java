@@ -0,0 +1,188 @@
+package com.creation_and_destroying_objects;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An arena for short-lived Cleaner-style resources.
+ * Registering every resource with a Cleaner costs a PhantomReference and a Cleanable per object,
+ * all of which the GC has to discover and process. Within a scope:
+ * 1. Resources add their cleanup action to a plain list - no per-object GC bookkeeping
+ * 2. Closing the scope runs every action that has not already run, in reverse order of registration
+ * 3. The scope itself has a single Cleaner registration as the safety net for all of them
+ *
+ * Resources can still be closed individually before the scope; their action then runs once
+ * and is skipped when the scope closes. The scope keeps each action (not the resource) until
+ * it is closed, so scopes are meant to be short-lived, e.g. one per request.
+ *
+ * The Cleanable returned by register() holds the scope, so a scope stays reachable - and its
+ * safety net cannot fire - for as long as any of its resources is.
+ */
+public class ResourceScope implements AutoCloseable {
+    private static final Cleaner cleaner = Cleaner.create();
+
+    private final State state;
+    private final Cleaner.Cleanable cleanable;
+
+    /**
+     * A cleanup action that is told whether it runs because of an explicit close
+     * (of the resource or of the scope) or because the scope became unreachable.
+     */
+    @FunctionalInterface
+    public interface Action {
+        void release(boolean explicit);
+    }
+
+    // State class holding the registered actions; must not reference the ResourceScope
+    private static class State implements Runnable {
+        private final List<ScopedCleanable> actions = new ArrayList<>();
+        private final LeakDetector.Tracker tracker = LeakDetector.track(ResourceScope.class);
+        private boolean closed;
+        // Set by ResourceScope.close(), so actions can tell it from the Cleaner
+        private volatile boolean explicitClose;
+
+        synchronized ScopedCleanable add(Action action) {
+            if (this.closed) {
+                throw new IllegalStateException("Scope is already closed");
+            }
+            ScopedCleanable scoped = new ScopedCleanable(action);
+            this.actions.add(scoped);
+            return scoped;
+        }
+
+        @Override
+        public void run() {
+            ScopedCleanable[] toRun;
+            synchronized (this) {
+                this.closed = true;
+                toRun = this.actions.toArray(new ScopedCleanable[0]);
+                this.actions.clear();
+            }
+            RuntimeException failure = null;
+            for (int i = toRun.length - 1; i >= 0; i--) {
+                try {
+                    toRun[i].release(this.explicitClose);
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (this.tracker != null) {
+                this.tracker.onCleanup();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * The scope's record of one action. Runs it at most once,
+     * whether triggered by the resource's close() or by the scope.
+     */
+    private static final class ScopedCleanable {
+        private final Action action;
+        private final AtomicBoolean cleaned = new AtomicBoolean();
+
+        ScopedCleanable(Action action) {
+            this.action = action;
+        }
+
+        void release(boolean explicit) {
+            if (this.cleaned.compareAndSet(false, true)) {
+                this.action.release(explicit);
+            }
+        }
+    }
+
+    /**
+     * The Cleanable handed to a scoped resource. It references the scope, which State must not,
+     * so the scope cannot be cleaned while the resource is still reachable.
+     */
+    private static final class ScopeBoundCleanable implements Cleaner.Cleanable {
+        // Never read: holding it is what keeps the scope reachable
+        private final ResourceScope scope;
+        private final ScopedCleanable scoped;
+
+        ScopeBoundCleanable(ResourceScope scope, ScopedCleanable scoped) {
+            this.scope = scope;
+            this.scoped = scoped;
+        }
+
+        @Override
+        public void clean() {
+            this.scoped.release(true);
+        }
+    }
+
+    public ResourceScope() {
+        this.state = new State();
+        this.cleanable = cleaner.register(this, this.state);
+    }
+
+    /**
+     * Registers a cleanup action in this scope, in place of {@code Cleaner.register(resource, action)}.
+     * Like a Cleaner action, it must not reference the resource it cleans up.
+     *
+     * @param action the cleanup action
+     * @return a Cleanable that runs the action early and keeps the scope reachable; it runs at most once
+     * @throws IllegalStateException if the scope has been closed
+     */
+    public Cleaner.Cleanable register(Runnable action) {
+        return register(explicit -> action.run());
+    }
+
+    /**
+     * Like {@link #register(Runnable)}, for actions that report whether they were released explicitly.
+     */
+    public Cleaner.Cleanable register(Action action) {
+        return new ScopeBoundCleanable(this, this.state.add(action));
+    }
+
+    /**
+     * @return the number of actions registered and not yet released by closing this scope
+     */
+    public int size() {
+        synchronized (this.state) {
+            return this.state.actions.size();
+        }
+    }
+
+    /**
+     * Closes every resource registered in the scope that has not been closed yet.
+     * If cleanup actions fail, the first failure is thrown with the others suppressed.
+     */
+    @Override
+    public void close() {
+        this.state.explicitClose = true;
+        if (this.state.tracker != null) {
+            this.state.tracker.markClosed();
+        }
+        this.cleanable.clean();
+    }
+}
+
+/**
+ * Example usage of ResourceScope with scoped ResourceWithCleaner and OffHeapResource instances.
+ */
+class ResourceScopeExample {
+    public static void main(String[] args) {
+        try (ResourceScope scope = new ResourceScope()) {
+            ResourceWithCleaner first = new ResourceWithCleaner("scoped-1", scope);
+            ResourceWithCleaner second = new ResourceWithCleaner("scoped-2", scope);
+            OffHeapResource buffer = new OffHeapResource("scoped-buffer", 4096, scope);
+            first.doSomething();
+            buffer.putLong(0, 7L);
+
+            // Closing one resource early is still allowed; the scope will skip it
+            second.close();
+            System.out.println("Off-heap while scope is open: " + OffHeapMemory.summary());
+        }
+        System.out.println("Off-heap after scope closed: " + OffHeapMemory.summary());
+    }
+}
@@ -0,0 +1,167 @@
+package com.creation_and_destroying_objects;
+
+import java.util.Arrays;
+
+/**
+ * A stack that grows and shrinks in fixed-size chunks instead of one backing array.
+ * {@link CorrectedStack} fixes the obsolete-reference leak, but still:
+ * 1. Grows by copying the whole array, so an occasional push costs O(n)
+ * 2. Never shrinks, so the peak footprint is kept for the stack's lifetime
+ *
+ * Here the elements live in chunks of a power-of-two size, reached through a small directory:
+ * 1. Growing allocates one chunk; only the directory (one reference per chunk) is ever copied
+ * 2. Popped slots are nulled, like CorrectedStack
+ * 3. Chunks emptied by pops are released, but with hysteresis: a number of spare empty chunks
+ *    is kept, so a stack oscillating around a chunk boundary does not allocate on every push
+ * 4. trimToSize() releases every spare chunk and shrinks the directory, e.g. after a burst
+ *
+ * Not thread-safe, like the other stacks in this package.
+ */
+public class SegmentedStack<T> {
+    private static final int DEFAULT_CHUNK_SIZE = 1024;
+    private static final int DEFAULT_SPARE_CHUNKS = 1;
+    private static final int INITIAL_DIRECTORY_SIZE = 4;
+
+    private final int chunkShift;
+    private final int chunkMask;
+    private final int spareChunks;
+    private Object[][] chunks;
+    // Chunks currently allocated; chunks at or above this index are null
+    private int chunkCount;
+    private int size;
+
+    public SegmentedStack() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_SPARE_CHUNKS);
+    }
+
+    /**
+     * @param chunkSize the number of elements per chunk, a power of two
+     * @param spareChunks how many empty chunks to keep above the top before releasing them
+     */
+    public SegmentedStack(int chunkSize, int spareChunks) {
+        if (chunkSize <= 0 || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("chunkSize must be a power of two: " + chunkSize);
+        }
+        if (spareChunks < 0) {
+            throw new IllegalArgumentException("spareChunks must not be negative: " + spareChunks);
+        }
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.chunkMask = chunkSize - 1;
+        this.spareChunks = spareChunks;
+        this.chunks = new Object[INITIAL_DIRECTORY_SIZE][];
+    }
+
+    public void push(T e) {
+        int chunk = this.size >>> this.chunkShift;
+        if (chunk == this.chunkCount) {
+            addChunk();
+        }
+        this.chunks[chunk][this.size & this.chunkMask] = e;
+        this.size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T pop() {
+        if (this.size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        this.size--;
+        Object[] chunk = this.chunks[this.size >>> this.chunkShift];
+        int index = this.size & this.chunkMask;
+        T result = (T) chunk[index];
+        chunk[index] = null; // Eliminate obsolete reference
+        if (index == 0) {
+            // This chunk just became empty
+            releaseEmptyChunks(this.spareChunks);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (this.size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        int top = this.size - 1;
+        return (T) this.chunks[top >>> this.chunkShift][top & this.chunkMask];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return the number of element slots currently allocated
+     */
+    public int getCapacity() {
+        return this.chunkCount << this.chunkShift;
+    }
+
+    public int getChunkCount() {
+        return this.chunkCount;
+    }
+
+    /**
+     * Releases every empty chunk and shrinks the chunk directory to fit.
+     */
+    public void trimToSize() {
+        releaseEmptyChunks(0);
+        int directorySize = Math.max(INITIAL_DIRECTORY_SIZE, this.chunkCount);
+        if (directorySize < this.chunks.length) {
+            this.chunks = Arrays.copyOf(this.chunks, directorySize);
+        }
+    }
+
+    private void addChunk() {
+        if (this.chunkCount == this.chunks.length) {
+            // Only the directory is copied: one reference per chunk, not per element
+            this.chunks = Arrays.copyOf(this.chunks, 2 * this.chunks.length);
+        }
+        this.chunks[this.chunkCount++] = new Object[this.chunkMask + 1];
+    }
+
+    private void releaseEmptyChunks(int keep) {
+        int usedChunks = (this.size + this.chunkMask) >>> this.chunkShift;
+        while (this.chunkCount - usedChunks > keep) {
+            this.chunks[--this.chunkCount] = null;
+        }
+    }
+}
+
+/**
+ * Example usage of SegmentedStack: a burst grows it, draining shrinks it again.
+ */
+class SegmentedStackExample {
+    public static void main(String[] args) {
+        SegmentedStack<String> stack = new SegmentedStack<>();
+        CorrectedStack<String> corrected = new CorrectedStack<>();
+        for (int i = 0; i < 100_000; i++) {
+            stack.push("item-" + i);
+            corrected.push("item-" + i);
+        }
+        System.out.println("After 100,000 pushes: segmented capacity=" + stack.getCapacity()
+                + ", corrected capacity=" + corrected.getBackingArrayLength());
+
+        for (int i = 0; i < 100_000 - 2048; i++) {
+            stack.pop();
+            corrected.pop();
+        }
+        System.out.println("After popping to 2,048: segmented capacity=" + stack.getCapacity()
+                + " (" + stack.getChunkCount() + " chunks), corrected capacity=" + corrected.getBackingArrayLength());
+
+        // Oscillating across a chunk boundary does not allocate: the spare chunk is kept
+        int before = stack.getChunkCount();
+        for (int i = 0; i < 1000; i++) {
+            stack.push("x");
+            stack.pop();
+        }
+        System.out.println("Chunks before and after oscillating: " + before + " -> " + stack.getChunkCount());
+
+        stack.trimToSize();
+        System.out.println("After trimToSize: segmented capacity=" + stack.getCapacity());
+    }
+}
@@ -0,0 +1,186 @@
+package com.creation_and_destroying_objects;
+
+import java.util.function.Supplier;
+
+/**
+ * Pause-time benchmark: per-operation latency percentiles of {@link SegmentedStack} against
+ * {@link CorrectedStack}.
+ *
+ * Each round fills a new stack with {@value #ELEMENTS} elements and pops them all again, timing
+ * every operation with System.nanoTime(). A new stack per round means both pay for growing.
+ * CorrectedStack's occasional whole-array copy shows up as operations slower than 100 us and in
+ * the maximum; the segmented stack's worst case is one chunk allocation, which is more frequent
+ * but small, so it shows up around p99.9 instead. GC pauses hit both equally.
+ * Also reports the capacity each stack keeps after being drained.
+ *
+ * Timer overhead (a few tens of ns) is included in every sample, so only the tail is meaningful.
+ *
+ * Run with: java -cp target/classes com.creation_and_destroying_objects.SegmentedStackBenchmark
+ */
+public class SegmentedStackBenchmark {
+    private static final int ELEMENTS = 4_000_000;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURE_ROUNDS = 3;
+    private static final double[] PERCENTILES = {50, 99, 99.9, 99.99};
+    private static final long SPIKE_NANOS = 100_000;
+
+    private static volatile Object sink;
+
+    /**
+     * The operations under test, so both stacks run the same loop.
+     */
+    private interface StackUnderTest {
+        void push(Object e);
+
+        Object pop();
+
+        int capacity();
+    }
+
+    public static void main(String[] args) {
+        Object element = new Object();
+        System.out.printf("%-16s %8s %8s %8s %9s %10s %10s %12s%n",
+                "stack", "p50 ns", "p99 ns", "p99.9 ns", "p99.99 ns", "max ns", "ops>100us", "drained cap");
+
+        run("CorrectedStack", element, () -> {
+            CorrectedStack<Object> corrected = new CorrectedStack<>();
+            return new StackUnderTest() {
+                @Override
+                public void push(Object e) {
+                    corrected.push(e);
+                }
+
+                @Override
+                public Object pop() {
+                    return corrected.pop();
+                }
+
+                @Override
+                public int capacity() {
+                    return corrected.getBackingArrayLength();
+                }
+            };
+        });
+
+        run("SegmentedStack", element, () -> {
+            SegmentedStack<Object> segmented = new SegmentedStack<>();
+            return new StackUnderTest() {
+                @Override
+                public void push(Object e) {
+                    segmented.push(e);
+                }
+
+                @Override
+                public Object pop() {
+                    return segmented.pop();
+                }
+
+                @Override
+                public int capacity() {
+                    return segmented.getCapacity();
+                }
+            };
+        });
+    }
+
+    private static void run(String name, Object element, Supplier<StackUnderTest> factory) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            cycle(factory.get(), element, null);
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        int drainedCapacity = 0;
+        for (int round = 0; round < MEASURE_ROUNDS; round++) {
+            StackUnderTest stack = factory.get();
+            cycle(stack, element, histogram);
+            drainedCapacity = stack.capacity();
+        }
+        System.out.printf("%-16s %8d %8d %8d %9d %10d %10d %12d%n", name,
+                histogram.percentile(PERCENTILES[0]), histogram.percentile(PERCENTILES[1]),
+                histogram.percentile(PERCENTILES[2]), histogram.percentile(PERCENTILES[3]),
+                histogram.max(), histogram.countAbove(SPIKE_NANOS), drainedCapacity);
+    }
+
+    private static void cycle(StackUnderTest stack, Object element, LatencyHistogram histogram) {
+        for (int i = 0; i < ELEMENTS; i++) {
+            long start = System.nanoTime();
+            stack.push(element);
+            long elapsed = System.nanoTime() - start;
+            if (histogram != null) {
+                histogram.record(elapsed);
+            }
+        }
+        Object last = null;
+        for (int i = 0; i < ELEMENTS; i++) {
+            long start = System.nanoTime();
+            last = stack.pop();
+            long elapsed = System.nanoTime() - start;
+            if (histogram != null) {
+                histogram.record(elapsed);
+            }
+        }
+        sink = last;
+    }
+
+    /**
+     * Log-linear histogram: exact below 128 ns, then 32 sub-buckets per power of two (~3% error).
+     * Fixed size, so recording never allocates and cannot itself cause the pauses it measures.
+     */
+    private static final class LatencyHistogram {
+        private static final int LINEAR = 128;
+        private static final int SUB_BUCKETS = 32;
+        private static final int LINEAR_BITS = 7;
+        private static final int SUB_BUCKET_BITS = 5;
+
+        private final long[] counts = new long[LINEAR + (64 - LINEAR_BITS) * SUB_BUCKETS];
+        private long total;
+        private long max;
+
+        void record(long nanos) {
+            this.counts[indexOf(nanos)]++;
+            this.total++;
+            this.max = Math.max(this.max, nanos);
+        }
+
+        long percentile(double percentile) {
+            long rank = (long) Math.ceil(this.total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= rank) {
+                    return lowerBound(i);
+                }
+            }
+            return this.max;
+        }
+
+        long max() {
+            return this.max;
+        }
+
+        long countAbove(long nanos) {
+            long count = 0;
+            for (int i = indexOf(nanos) + 1; i < this.counts.length; i++) {
+                count += this.counts[i];
+            }
+            return count;
+        }
+
+        private static int indexOf(long nanos) {
+            if (nanos < LINEAR) {
+                return (int) Math.max(0, nanos);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return LINEAR + (exponent - LINEAR_BITS) * SUB_BUCKETS + subBucket;
+        }
+
+        private static long lowerBound(int index) {
+            if (index < LINEAR) {
+                return index;
+            }
+            int exponent = (index - LINEAR) / SUB_BUCKETS + LINEAR_BITS;
+            int subBucket = (index - LINEAR) % SUB_BUCKETS;
+            return (1L << exponent) + ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.creation_and_destroying_objects;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention benchmark for singleton access: {@link TrueSingleton} (synchronized getInstance),
+ * {@link EnumSingleton}, {@link HolderSingleton} and {@link Lazy}, at 1 to {@value #MAX_THREADS}
+ * threads (doubled each round).
+ *
+ * Every thread fetches the already initialized instance in batches of {@value #BATCH} calls,
+ * checking the clock once per batch, and compares each result with a volatile field so the
+ * call cannot be optimized away. Reports total throughput in millions of calls per second.
+ * Rounds with more threads than CPUs measure behaviour under oversubscription; the CPU count is
+ * printed for context.
+ *
+ * Run with: java -cp target/classes com.creation_and_destroying_objects.SingletonBenchmark
+ */
+public class SingletonBenchmark {
+    private static final int MAX_THREADS = 16;
+    private static final int BATCH = 1024;
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 1000;
+
+    private static final Lazy<Object> LAZY = Lazy.of(Object::new);
+
+    private static volatile long sink;
+    // Never set: read on every call, so the JIT cannot hoist or drop a constant instance
+    private static volatile Object marker;
+
+    /**
+     * The access under test, so all singletons run the same loop.
+     */
+    private interface SingletonUnderTest {
+        Object getInstance();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("CPUs: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-16s %8s %12s%n", "singleton", "threads", "Mcalls/s");
+        // An unreported first pass shows the JIT all four singletons, so no measured round gets
+        // an inlined call site that later rounds do not
+        for (int threads = 0; threads <= MAX_THREADS; threads = Math.max(1, 2 * threads)) {
+            boolean report = threads > 0;
+            int workers = Math.max(1, threads);
+            run("TrueSingleton", workers, report, TrueSingleton::getInstance);
+            run("EnumSingleton", workers, report, () -> EnumSingleton.INSTANCE);
+            run("HolderSingleton", workers, report, HolderSingleton::getInstance);
+            run("Lazy", workers, report, LAZY::get);
+        }
+    }
+
+    private static void run(String name, int threads, boolean report, SingletonUnderTest singleton)
+            throws InterruptedException {
+        singleton.getInstance();
+        LongAdder calls = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long measureStart = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+                long measureEnd = measureStart + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+                long count = 0;
+                long matches = 0;
+                long now;
+                while ((now = System.nanoTime()) < measureEnd) {
+                    for (int j = 0; j < BATCH; j++) {
+                        if (singleton.getInstance() == marker) {
+                            matches++;
+                        }
+                    }
+                    if (now >= measureStart) {
+                        count += BATCH;
+                    }
+                }
+                sink = matches;
+                calls.add(count);
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double millionsPerSecond = calls.sum() / (MEASURE_MILLIS / 1000.0) / 1_000_000;
+        if (report) {
+            System.out.printf("%-16s %8d %12.1f%n", name, threads, millionsPerSecond);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.creation_and_destroying_objects;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The off-heap tier of {@link TieredCache}: an append-only log of encoded values in a
+ * memory-mapped file, with an on-heap index from key to record position.
+ *
+ * Record layout: a 4-byte length followed by the encoded value. Keys stay on the heap in the
+ * index; only values, which are usually the bulk of the data, move off-heap.
+ *
+ * Space management:
+ * 1. Overwritten and removed records become dead space
+ * 2. When an append does not fit, live records are compacted into a fresh file
+ * 3. If the live records alone do not leave room, the oldest spilled entries are dropped
+ *
+ * All methods are synchronized: this is the slow tier, and a single lock keeps the
+ * index, the write position and compaction consistent.
+ */
+class SpillStore<K, V> implements AutoCloseable {
+    private static final int HEADER_BYTES = Integer.BYTES;
+
+    private final TieredCache.Codec<V> codec;
+    private final int capacity;
+    private final Path directory;
+
+    // Insertion order, so the oldest entries are the first dropped when the file is full
+    private final LinkedHashMap<K, Slot> index = new LinkedHashMap<>();
+    private Path file;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private long liveBytes;
+    private int generation;
+    private boolean closed;
+
+    private long compactions;
+    private long dropped;
+
+    // Position of one record in the mapped file
+    private static final class Slot {
+        final int offset;
+        final int length;
+
+        Slot(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        int recordBytes() {
+            return HEADER_BYTES + this.length;
+        }
+    }
+
+    SpillStore(TieredCache.Codec<V> codec, int capacity, Path directory) {
+        if (capacity <= HEADER_BYTES) {
+            throw new IllegalArgumentException("capacity too small: " + capacity);
+        }
+        this.codec = codec;
+        this.capacity = capacity;
+        this.directory = directory;
+        this.buffer = mapNewFile();
+    }
+
+    /**
+     * Spills a value, replacing any earlier spilled value for the key.
+     * @return false if the value could not be stored because it is larger than the whole file
+     */
+    synchronized boolean put(K key, V value) {
+        ensureOpen();
+        byte[] bytes = this.codec.encode(value);
+        int recordBytes = HEADER_BYTES + bytes.length;
+        discard(key);
+        if (recordBytes > this.capacity) {
+            this.dropped++;
+            return false;
+        }
+        if (this.writePosition + recordBytes > this.capacity) {
+            makeRoom(recordBytes);
+        }
+        int offset = this.writePosition;
+        this.buffer.putInt(offset, bytes.length);
+        this.buffer.put(offset + HEADER_BYTES, bytes);
+        this.writePosition += recordBytes;
+        this.liveBytes += recordBytes;
+        this.index.put(key, new Slot(offset, bytes.length));
+        return true;
+    }
+
+    /**
+     * Removes and returns the spilled value for the key, for promotion back to the heap.
+     */
+    synchronized V take(K key) {
+        ensureOpen();
+        Slot slot = this.index.remove(key);
+        if (slot == null) {
+            return null;
+        }
+        this.liveBytes -= slot.recordBytes();
+        return this.codec.decode(read(slot));
+    }
+
+    synchronized boolean remove(K key) {
+        ensureOpen();
+        return discard(key);
+    }
+
+    synchronized int size() {
+        return this.index.size();
+    }
+
+    synchronized long liveBytes() {
+        return this.liveBytes;
+    }
+
+    synchronized long compactions() {
+        return this.compactions;
+    }
+
+    synchronized long dropped() {
+        return this.dropped;
+    }
+
+    int capacity() {
+        return this.capacity;
+    }
+
+    private boolean discard(K key) {
+        Slot slot = this.index.remove(key);
+        if (slot == null) {
+            return false;
+        }
+        this.liveBytes -= slot.recordBytes();
+        return true;
+    }
+
+    private byte[] read(Slot slot) {
+        byte[] bytes = new byte[slot.length];
+        this.buffer.get(slot.offset + HEADER_BYTES, bytes);
+        return bytes;
+    }
+
+    private void makeRoom(int recordBytes) {
+        // Drop the oldest entries until the live data plus the new record fits
+        Iterator<Map.Entry<K, Slot>> oldest = this.index.entrySet().iterator();
+        while (this.liveBytes + recordBytes > this.capacity && oldest.hasNext()) {
+            this.liveBytes -= oldest.next().getValue().recordBytes();
+            oldest.remove();
+            this.dropped++;
+        }
+        compact();
+    }
+
+    /**
+     * Copies every live record, in order, into a new file and deletes the old one.
+     */
+    private void compact() {
+        MappedByteBuffer old = this.buffer;
+        Path oldFile = this.file;
+        MappedByteBuffer fresh = mapNewFile();
+        int position = 0;
+        for (Map.Entry<K, Slot> entry : this.index.entrySet()) {
+            Slot slot = entry.getValue();
+            fresh.putInt(position, slot.length);
+            byte[] bytes = new byte[slot.length];
+            old.get(slot.offset + HEADER_BYTES, bytes);
+            fresh.put(position + HEADER_BYTES, bytes);
+            entry.setValue(new Slot(position, slot.length));
+            position += slot.recordBytes();
+        }
+        this.buffer = fresh;
+        this.writePosition = position;
+        this.compactions++;
+        OffHeapMemory.release(old);
+        deleteQuietly(oldFile);
+    }
+
+    private MappedByteBuffer mapNewFile() {
+        try {
+            this.file = Files.createTempFile(this.directory, "spill-" + this.generation++ + "-", ".dat");
+            try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, this.capacity);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create spill file in " + this.directory, e);
+        }
+    }
+
+    private void ensureOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("Spill store is closed");
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Temp directory cleanup will get it
+        }
+    }
+
+    /**
+     * Unmaps and deletes the spill file.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.index.clear();
+        this.liveBytes = 0;
+        OffHeapMemory.release(this.buffer);
+        this.buffer = null;
+        deleteQuietly(this.file);
+    }
+}
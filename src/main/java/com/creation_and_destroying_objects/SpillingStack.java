@@ -0,0 +1,313 @@
+package com.creation_and_destroying_objects;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A stack for very deep traversals: only the top segments are kept on the heap, older segments
+ * are spilled to memory-mapped temp files and paged back in when pops reach them. Peak heap use
+ * is therefore fixed by the segment size, however deep the stack grows.
+ *
+ * Layout:
+ * 1. At most {@code heapSegments} segments of {@code segmentSize} elements live on the heap; the
+ *    top one is being filled, the ones below it are full
+ * 2. Pushing past them writes the bottom heap segment to its own file and reuses its array
+ * 3. Popping below them reads the most recently spilled file back into an array and deletes it
+ *
+ * Keeping at least two segments on the heap gives hysteresis: a stack oscillating around a
+ * segment boundary never spills or pages in.
+ *
+ * Elements are written with a {@link TieredCache.Codec}. Each file holds the element count
+ * followed by length-prefixed encoded elements. close() deletes the files and their directory;
+ * a Cleaner does the same if the stack becomes unreachable without being closed.
+ *
+ * Not thread-safe, like the other stacks in this package.
+ */
+public class SpillingStack<T> implements AutoCloseable {
+    private static final Cleaner cleaner = Cleaner.create();
+    private static final int DEFAULT_SEGMENT_SIZE = 8192;
+    private static final int DEFAULT_HEAP_SEGMENTS = 2;
+
+    private final TieredCache.Codec<T> codec;
+    private final int segmentSize;
+    private final int maxHeapSegments;
+    // Last is the top segment; all others are full
+    private final ArrayDeque<Object[]> heapSegments = new ArrayDeque<>();
+    private final State state;
+    private final Cleaner.Cleanable cleanable;
+    private int topCount;
+    private int size;
+    private long spilledBytes;
+    private long spills;
+    private long pageIns;
+
+    // Owns the spill files; must not reference the stack
+    private static class State implements Runnable {
+        private final Path directory;
+        // Most recently spilled segment last
+        private final ArrayDeque<Path> files = new ArrayDeque<>();
+        private int nextFile;
+        private volatile boolean closed;
+
+        State(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public void run() {
+            // Runs at most once: either from close() or from the Cleaner thread
+            this.closed = true;
+            for (Path file : this.files) {
+                deleteQuietly(file);
+            }
+            this.files.clear();
+            deleteQuietly(this.directory);
+        }
+    }
+
+    /**
+     * Creates a stack with the default segment size, spilling to a new directory under the
+     * system temp directory.
+     */
+    public SpillingStack(TieredCache.Codec<T> codec) {
+        this(codec, DEFAULT_SEGMENT_SIZE, DEFAULT_HEAP_SEGMENTS, Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param codec encodes elements for the spill files
+     * @param segmentSize the number of elements per segment
+     * @param heapSegments the number of segments kept on the heap, at least 2
+     * @param tempDirectory where to create this stack's spill directory
+     */
+    public SpillingStack(TieredCache.Codec<T> codec, int segmentSize, int heapSegments, Path tempDirectory) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be positive: " + segmentSize);
+        }
+        if (heapSegments < 2) {
+            throw new IllegalArgumentException("heapSegments must be at least 2: " + heapSegments);
+        }
+        this.codec = Objects.requireNonNull(codec);
+        this.segmentSize = segmentSize;
+        this.maxHeapSegments = heapSegments;
+        try {
+            this.state = new State(Files.createTempDirectory(tempDirectory, "spilling-stack-"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create spill directory in " + tempDirectory, e);
+        }
+        this.cleanable = cleaner.register(this, this.state);
+        this.heapSegments.addLast(new Object[segmentSize]);
+    }
+
+    public void push(T e) {
+        Objects.requireNonNull(e);
+        ensureOpen();
+        if (this.topCount == this.segmentSize) {
+            if (this.heapSegments.size() == this.maxHeapSegments) {
+                // Spill the bottom heap segment and reuse its array as the new top. It only leaves
+                // the heap once the file is written, so a failed spill loses nothing.
+                spill(this.heapSegments.peekFirst());
+                Object[] bottom = this.heapSegments.pollFirst();
+                Arrays.fill(bottom, null);
+                this.heapSegments.addLast(bottom);
+            } else {
+                this.heapSegments.addLast(new Object[this.segmentSize]);
+            }
+            this.topCount = 0;
+        }
+        this.heapSegments.peekLast()[this.topCount++] = e;
+        this.size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T pop() {
+        if (this.size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        ensureOpen();
+        if (this.topCount == 0) {
+            if (this.heapSegments.size() == 1) {
+                // Everything below is on disk: read the latest segment back into the empty array
+                pageIn(this.heapSegments.peekLast());
+            } else {
+                this.heapSegments.pollLast();
+            }
+            this.topCount = this.segmentSize;
+        }
+        Object[] top = this.heapSegments.peekLast();
+        T result = (T) top[--this.topCount];
+        top[this.topCount] = null; // Eliminate obsolete reference
+        this.size--;
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (this.size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        if (this.topCount > 0) {
+            return (T) this.heapSegments.peekLast()[this.topCount - 1];
+        }
+        // The top is in a lower segment, possibly on disk: let pop() bring it in
+        T top = pop();
+        push(top);
+        return top;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int getHeapSegmentCount() {
+        return this.heapSegments.size();
+    }
+
+    public int getSpilledSegmentCount() {
+        return this.state.files.size();
+    }
+
+    /**
+     * @return the bytes currently held in spill files
+     */
+    public long getSpilledBytes() {
+        return this.spilledBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "SpillingStack{" +
+                "size=" + this.size +
+                ", heapSegments=" + getHeapSegmentCount() +
+                ", spilledSegments=" + getSpilledSegmentCount() +
+                ", spilledBytes=" + this.spilledBytes +
+                ", spills=" + this.spills +
+                ", pageIns=" + this.pageIns +
+                '}';
+    }
+
+    /**
+     * Deletes all spill files. The stack must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        this.cleanable.clean();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void spill(Object[] segment) {
+        byte[][] encoded = new byte[segment.length][];
+        long bytes = Integer.BYTES;
+        for (int i = 0; i < segment.length; i++) {
+            encoded[i] = this.codec.encode((T) segment[i]);
+            bytes += Integer.BYTES + encoded[i].length;
+        }
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Segment of " + bytes + " bytes is too large to map; use a smaller segmentSize");
+        }
+        Path file = this.state.directory.resolve("segment-" + this.state.nextFile++ + ".dat");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buffer.putInt(segment.length);
+            for (byte[] element : encoded) {
+                buffer.putInt(element.length);
+                buffer.put(element);
+            }
+            OffHeapMemory.release(buffer);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException("Could not spill segment to " + file, e);
+        }
+        this.state.files.addLast(file);
+        this.spilledBytes += bytes;
+        this.spills++;
+    }
+
+    private void pageIn(Object[] segment) {
+        // The file stays listed until the segment has decoded, so a failed read can be retried
+        Path file = this.state.files.peekLast();
+        long bytes;
+        boolean loaded = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            bytes = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] element = new byte[buffer.getInt()];
+                buffer.get(element);
+                segment[i] = this.codec.decode(element);
+            }
+            OffHeapMemory.release(buffer);
+            loaded = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read spilled segment " + file, e);
+        } finally {
+            if (!loaded) {
+                Arrays.fill(segment, null);
+            }
+        }
+        this.state.files.pollLast();
+        deleteQuietly(file);
+        this.spilledBytes -= bytes;
+        this.pageIns++;
+    }
+
+    private void ensureOpen() {
+        if (this.state.closed) {
+            throw new IllegalStateException("Stack is closed");
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Temp directory cleanup will get it
+        }
+    }
+}
+
+/**
+ * Example usage of SpillingStack: a deep stack whose heap footprint stays at two segments.
+ */
+class SpillingStackExample {
+    public static void main(String[] args) {
+        Path tempDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+        try (SpillingStack<String> stack = new SpillingStack<>(TieredCache.Codec.utf8(), 10_000, 2, tempDirectory)) {
+            for (int i = 0; i < 1_000_000; i++) {
+                stack.push("node-" + i);
+            }
+            System.out.println("After 1,000,000 pushes: " + stack);
+
+            // Oscillating at the top touches no files
+            for (int i = 0; i < 100_000; i++) {
+                stack.pop();
+                stack.push("node-again");
+            }
+            System.out.println("After oscillating: " + stack);
+
+            boolean ordered = true;
+            stack.pop();
+            for (int i = 999_998; i >= 0; i--) {
+                if (!stack.pop().equals("node-" + i)) {
+                    ordered = false;
+                }
+            }
+            System.out.println("Popped everything back in LIFO order: " + ordered);
+            System.out.println("After draining: " + stack);
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package com.creation_and_destroying_objects;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Dictionary encoding for string-heavy data: each distinct string is stored once, as UTF-8
+ * bytes in off-heap pages, and callers hold an int code instead of a String.
+ *
+ * Compared with keeping the strings on the heap:
+ * 1. The character data is off-heap, so it is neither copied nor scanned by the GC
+ * 2. Per-string heap cost is a few slots in primitive arrays, which the GC does not trace
+ * 3. Equal strings share one code, so equality is {@code a == b} and needs no bytes at all
+ * 4. compare(), hash(), length() and writeTo() work on the stored bytes; a String is only
+ *    materialized by decode(), when a caller actually needs one
+ *
+ * compare() orders codes by their UTF-8 bytes, which is Unicode code point order. hash() is
+ * computed from the bytes alone, so equal strings hash equally across dictionaries.
+ *
+ * Threading: encode() and lookup() are synchronized; the other methods never wait on them.
+ * Methods that touch the pages hold a shared read stamp, and close() takes the write stamp
+ * before freeing them, so a read racing close() fails with IllegalStateException instead of
+ * touching freed memory. Codes must be passed between threads with the usual safe publication,
+ * like any other value.
+ *
+ * Pages are allocated through {@link OffHeapMemory}, so they count against its cap, and
+ * released by close() or, as a safety net, by a Cleaner once the dictionary is unreachable.
+ */
+public class StringDictionary implements AutoCloseable {
+    private static final Cleaner cleaner = Cleaner.create();
+    private static final int DEFAULT_PAGE_BYTES = 64 * 1024;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NO_CODE = -1;
+
+    private final int pageBytes;
+    private final State state;
+    private final Cleaner.Cleanable cleanable;
+    // Read-held while pages are accessed, write-held by close() while they are freed
+    private final StampedLock closeLock = new StampedLock();
+
+    // Per-code metadata, indexed by code. Written under the lock before size is published, and
+    // replaced as a whole on growth, so a reader that sees a newer holder also sees its contents.
+    private volatile Entries entries;
+    // Read first by lock-free readers: a code below size has fully written metadata and bytes
+    private volatile int size;
+    // Snapshot of state.pages for lock-free readers, republished when a page is added
+    private volatile ByteBuffer[] pages = new ByteBuffer[0];
+
+    // Open-addressing table of code + 1 (0 means empty), probed by hash; guarded by this
+    private int[] table;
+    private ByteBuffer currentPage;
+    private long storedBytes;
+    private long encodeRequests;
+
+    // The three metadata arrays, published together
+    private static final class Entries {
+        final long[] locations;
+        final int[] lengths;
+        final int[] hashes;
+
+        Entries(long[] locations, int[] lengths, int[] hashes) {
+            this.locations = locations;
+            this.lengths = lengths;
+            this.hashes = hashes;
+        }
+    }
+
+    // Owns the off-heap pages; must not reference the dictionary
+    private static class State implements Runnable {
+        private final List<ByteBuffer> pages = new ArrayList<>();
+        private volatile boolean freed;
+
+        @Override
+        public void run() {
+            // Runs at most once: either from close() or from the Cleaner thread
+            this.freed = true;
+            for (ByteBuffer page : this.pages) {
+                OffHeapMemory.free(page);
+            }
+        }
+    }
+
+    public StringDictionary() {
+        this(DEFAULT_PAGE_BYTES);
+    }
+
+    /**
+     * @param pageBytes the size of each off-heap page; longer strings get a page of their own
+     */
+    public StringDictionary(int pageBytes) {
+        if (pageBytes <= 0) {
+            throw new IllegalArgumentException("pageBytes must be positive: " + pageBytes);
+        }
+        this.pageBytes = pageBytes;
+        this.entries = new Entries(new long[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY]);
+        this.table = new int[INITIAL_CAPACITY * 2];
+        this.state = new State();
+        this.cleanable = cleaner.register(this, this.state);
+    }
+
+    /**
+     * Returns the code for the string, adding it to the dictionary if it is new.
+     */
+    public int encode(String value) {
+        return encode(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the code for the UTF-8 byte sequence, adding it to the dictionary if it is new.
+     * The array is copied; the caller may reuse it.
+     */
+    public synchronized int encode(byte[] utf8) {
+        long stamp = readOpen();
+        try {
+            this.encodeRequests++;
+            int hash = hashBytes(utf8);
+            int slot = find(utf8, hash);
+            if (this.table[slot] != 0) {
+                return this.table[slot] - 1;
+            }
+            int code = this.size;
+            if (code == this.entries.locations.length) {
+                growEntries();
+            }
+            Entries entries = this.entries;
+            entries.locations[code] = append(utf8);
+            entries.lengths[code] = utf8.length;
+            entries.hashes[code] = hash;
+            this.table[slot] = code + 1;
+            this.storedBytes += utf8.length;
+            // Publishes the metadata and bytes above to lock-free readers
+            this.size = code + 1;
+            if (this.size * 2 > this.table.length) {
+                rehash();
+            }
+            return code;
+        } finally {
+            this.closeLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return the code for the string, or -1 if it has never been encoded; never adds it
+     */
+    public synchronized int lookup(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        long stamp = readOpen();
+        try {
+            int slot = find(utf8, hashBytes(utf8));
+            return this.table[slot] - 1;
+        } finally {
+            this.closeLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Materializes the string for a code. Prefer the byte-level methods where they suffice.
+     */
+    public String decode(int code) {
+        return new String(bytes(code), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a copy of the UTF-8 bytes for a code
+     */
+    public byte[] bytes(int code) {
+        checkCode(code);
+        byte[] bytes = new byte[this.entries.lengths[code]];
+        long stamp = readOpen();
+        try {
+            page(code).get(offset(code), bytes);
+        } finally {
+            this.closeLock.unlockRead(stamp);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the length in UTF-8 bytes of the string for a code
+     */
+    public int length(int code) {
+        checkCode(code);
+        return this.entries.lengths[code];
+    }
+
+    /**
+     * @return a hash of the string's UTF-8 bytes, equal for equal strings in any dictionary
+     */
+    public int hash(int code) {
+        checkCode(code);
+        return this.entries.hashes[code];
+    }
+
+    /**
+     * Compares the strings for two codes in Unicode code point order, eight bytes at a time,
+     * without decoding either of them.
+     */
+    public int compare(int a, int b) {
+        checkCode(a);
+        checkCode(b);
+        if (a == b) {
+            return 0;
+        }
+        long stamp = readOpen();
+        try {
+            return compareBytes(a, b);
+        } finally {
+            this.closeLock.unlockRead(stamp);
+        }
+    }
+
+    private int compareBytes(int a, int b) {
+        ByteBuffer pageA = page(a);
+        ByteBuffer pageB = page(b);
+        int offsetA = offset(a);
+        int offsetB = offset(b);
+        int lengthA = this.entries.lengths[a];
+        int lengthB = this.entries.lengths[b];
+        int common = Math.min(lengthA, lengthB);
+        int i = 0;
+        // Direct buffers are big-endian, so an unsigned long comparison is a lexicographic one
+        for (; i + Long.BYTES <= common; i += Long.BYTES) {
+            long wordA = pageA.getLong(offsetA + i);
+            long wordB = pageB.getLong(offsetB + i);
+            if (wordA != wordB) {
+                return Long.compareUnsigned(wordA, wordB);
+            }
+        }
+        for (; i < common; i++) {
+            int diff = Byte.toUnsignedInt(pageA.get(offsetA + i)) - Byte.toUnsignedInt(pageB.get(offsetB + i));
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return Integer.compare(lengthA, lengthB);
+    }
+
+    /**
+     * Copies the UTF-8 bytes for a code into the target buffer at its position.
+     */
+    public void writeTo(int code, ByteBuffer target) {
+        checkCode(code);
+        int offset = offset(code);
+        long stamp = readOpen();
+        try {
+            ByteBuffer source = page(code).duplicate();
+            source.limit(offset + this.entries.lengths[code]).position(offset);
+            target.put(source);
+        } finally {
+            this.closeLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Writes the UTF-8 bytes for a code to the stream.
+     */
+    public void writeTo(int code, OutputStream out) throws IOException {
+        out.write(bytes(code));
+    }
+
+    /**
+     * @return the number of distinct strings
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the UTF-8 bytes of all distinct strings
+     */
+    public synchronized long getStoredBytes() {
+        return this.storedBytes;
+    }
+
+    /**
+     * @return the off-heap bytes held in pages, including unused page tails
+     */
+    public long getOffHeapBytes() {
+        long total = 0;
+        for (ByteBuffer page : this.pages) {
+            total += page.capacity();
+        }
+        return total;
+    }
+
+    /**
+     * @return the heap bytes of the per-code metadata and the lookup table
+     */
+    public synchronized long getHeapBytes() {
+        Entries entries = this.entries;
+        return (long) entries.locations.length * Long.BYTES
+                + (long) entries.lengths.length * Integer.BYTES
+                + (long) entries.hashes.length * Integer.BYTES
+                + (long) this.table.length * Integer.BYTES;
+    }
+
+    public synchronized long getEncodeRequestCount() {
+        return this.encodeRequests;
+    }
+
+    @Override
+    public String toString() {
+        return "StringDictionary{" +
+                "size=" + size() +
+                ", encodeRequests=" + getEncodeRequestCount() +
+                ", storedBytes=" + getStoredBytes() +
+                ", offHeapBytes=" + getOffHeapBytes() +
+                ", heapBytes=" + getHeapBytes() +
+                '}';
+    }
+
+    /**
+     * Frees the off-heap pages once in-flight reads have finished. Later use of the
+     * dictionary throws IllegalStateException.
+     */
+    @Override
+    public void close() {
+        long stamp = this.closeLock.writeLock();
+        try {
+            this.cleanable.clean();
+        } finally {
+            this.closeLock.unlockWrite(stamp);
+        }
+    }
+
+    private int find(byte[] utf8, int hash) {
+        int mask = this.table.length - 1;
+        int slot = spread(hash) & mask;
+        while (true) {
+            int entry = this.table[slot];
+            if (entry == 0) {
+                return slot;
+            }
+            int code = entry - 1;
+            Entries entries = this.entries;
+            if (entries.hashes[code] == hash && entries.lengths[code] == utf8.length && bytesEqual(code, utf8)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean bytesEqual(int code, byte[] utf8) {
+        ByteBuffer page = page(code);
+        int offset = offset(code);
+        for (int i = 0; i < utf8.length; i++) {
+            if (page.get(offset + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long append(byte[] utf8) {
+        if (this.currentPage == null || this.currentPage.remaining() < utf8.length) {
+            ByteBuffer page = OffHeapMemory.allocate(Math.max(this.pageBytes, utf8.length));
+            this.state.pages.add(page);
+            this.pages = this.state.pages.toArray(new ByteBuffer[0]);
+            this.currentPage = page;
+        }
+        int offset = this.currentPage.position();
+        this.currentPage.put(utf8);
+        return ((long) (this.pages.length - 1) << 32) | offset;
+    }
+
+    private void growEntries() {
+        Entries current = this.entries;
+        int capacity = current.locations.length * 2;
+        this.entries = new Entries(Arrays.copyOf(current.locations, capacity),
+                Arrays.copyOf(current.lengths, capacity), Arrays.copyOf(current.hashes, capacity));
+    }
+
+    private void rehash() {
+        int[] rehashed = new int[this.table.length * 2];
+        int mask = rehashed.length - 1;
+        for (int code = 0; code < this.size; code++) {
+            int slot = spread(this.entries.hashes[code]) & mask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = code + 1;
+        }
+        this.table = rehashed;
+    }
+
+    private ByteBuffer page(int code) {
+        return this.pages[(int) (this.entries.locations[code] >>> 32)];
+    }
+
+    private int offset(int code) {
+        return (int) this.entries.locations[code];
+    }
+
+    private void checkCode(int code) {
+        // Reading size first makes the metadata for every smaller code visible
+        if (code < 0 || code >= this.size) {
+            throw new IllegalArgumentException("Unknown code: " + code);
+        }
+        ensureOpen();
+    }
+
+    // Takes a read stamp, so the pages cannot be freed until it is released
+    private long readOpen() {
+        long stamp = this.closeLock.readLock();
+        if (this.state.freed) {
+            this.closeLock.unlockRead(stamp);
+            throw new IllegalStateException("Dictionary is closed");
+        }
+        return stamp;
+    }
+
+    private void ensureOpen() {
+        if (this.state.freed) {
+            throw new IllegalStateException("Dictionary is closed");
+        }
+    }
+
+    private static int hashBytes(byte[] utf8) {
+        int hash = 1;
+        for (byte b : utf8) {
+            hash = 31 * hash + b;
+        }
+        return hash;
+    }
+
+    // Polynomial hashes of similar strings differ mostly in the low bits; mix before masking
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+}
+
+/**
+ * Example usage of StringDictionary: encoding the repeated address strings of many Builder
+ * records, then sorting and writing them by code.
+ */
+class StringDictionaryExample {
+    public static void main(String[] args) throws IOException {
+        String[] streets = {"Main Street", "Station Road", "Church Lane", "Park Avenue", "Königstraße"};
+        int records = 200_000;
+
+        try (StringDictionary dictionary = new StringDictionary()) {
+            // 1. One int per record instead of one String per record
+            int[] addressCodes = new int[records];
+            long heapStringBytes = 0;
+            for (int i = 0; i < records; i++) {
+                Builder person = Builder.builder()
+                        .name("person-" + i)
+                        .address((i % 1000) + " " + streets[i % streets.length])
+                        .build();
+                addressCodes[i] = dictionary.encode(person.getAddress());
+                heapStringBytes += Interner.estimateSize(person.getAddress());
+            }
+            System.out.println(dictionary);
+            System.out.println("Heap bytes as separate Strings: " + heapStringBytes);
+            System.out.println("Heap bytes as codes: " + ((long) records * Integer.BYTES + dictionary.getHeapBytes()));
+
+            // 2. Equality and ordering without decoding
+            System.out.println("Record 0 and 5000 share an address: " + (addressCodes[0] == addressCodes[5000]));
+            Integer[] distinct = new Integer[dictionary.size()];
+            for (int code = 0; code < distinct.length; code++) {
+                distinct[code] = code;
+            }
+            Arrays.sort(distinct, dictionary::compare);
+            System.out.println("First address in order: " + dictionary.decode(distinct[0]));
+            System.out.println("Last address in order: " + dictionary.decode(distinct[distinct.length - 1]));
+
+            // 3. Writing bytes straight from off-heap memory
+            ByteBuffer out = ByteBuffer.allocate(64);
+            dictionary.writeTo(addressCodes[4], out);
+            System.out.println("Wrote " + out.position() + " UTF-8 bytes for: " + dictionary.decode(addressCodes[4]));
+            System.out.println("Lookup of an unseen address: " + dictionary.lookup("1 Nowhere"));
+        }
+        System.out.println("After close: " + OffHeapMemory.summary());
+    }
+}
@@ -0,0 +1,22 @@
+package com.creation_and_destroying_objects;
+
+/**
+ * Source of time, in nanoseconds, for expiry in {@link BoundedCache} and {@link TimingWheel}.
+ * Injecting it lets tests move time forward explicitly instead of sleeping:
+ * 1. {@link #system()} - the default, backed by System.nanoTime()
+ * 2. Any lambda, e.g. {@code atomicLong::get}, for a manually advanced clock
+ *
+ * Only differences between readings are meaningful; the origin is arbitrary.
+ */
+@FunctionalInterface
+public interface Ticker {
+
+    long read();
+
+    /**
+     * @return a ticker backed by System.nanoTime()
+     */
+    static Ticker system() {
+        return System::nanoTime;
+    }
+}
@@ -0,0 +1,229 @@
+package com.creation_and_destroying_objects;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A two-tier cache: a {@link BoundedCache} on the heap backed by a memory-mapped spill tier.
+ * Weak and soft references simply drop data when the heap is tight, and it has to be
+ * recomputed. Here entries evicted from the heap tier are encoded into a mapped file instead,
+ * and promoted back to the heap when they are read again:
+ * 1. Hot entries stay on the heap with W-TinyLFU eviction
+ * 2. Cold entries live in the page cache, not the Java heap, so they add no GC work
+ * 3. The spill tier has its own size limit, compaction and index (see SpillStore)
+ *
+ * Closing the cache unmaps and deletes the spill file.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class TieredCache<K, V> implements AutoCloseable {
+
+    /**
+     * Converts values to bytes for the spill tier and back.
+     */
+    public interface Codec<T> {
+        byte[] encode(T value);
+
+        T decode(byte[] bytes);
+
+        static Codec<String> utf8() {
+            return new Codec<>() {
+                @Override
+                public byte[] encode(String value) {
+                    return value.getBytes(StandardCharsets.UTF_8);
+                }
+
+                @Override
+                public String decode(byte[] bytes) {
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+            };
+        }
+    }
+
+    private final BoundedCache<K, V> heap;
+    private final SpillStore<K, V> spill;
+    // Evicted entries waiting to be written to the spill tier, outside the heap tier's policy lock
+    private final ConcurrentHashMap<K, V> pendingSpills = new ConcurrentHashMap<>();
+
+    private final LongAdder heapHits = new LongAdder();
+    private final LongAdder spillHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+
+    /**
+     * @param heapBuilder the heap tier configuration; it is copied, not modified, and any eviction
+     *                    listener on it is replaced by this cache's
+     * @param codec encodes values for the spill tier
+     * @param spillBytes the size of the spill file; at most Integer.MAX_VALUE bytes
+     * @param spillDirectory where to create the spill file, e.g. the temp directory
+     */
+    public TieredCache(BoundedCache.Builder<K, V> heapBuilder, Codec<V> codec, int spillBytes, Path spillDirectory) {
+        this.spill = new SpillStore<>(Objects.requireNonNull(codec), spillBytes, spillDirectory);
+        // The listener runs under the heap tier's policy lock, so it only queues the entry
+        this.heap = heapBuilder.copy().evictionListener(this.pendingSpills::put).build();
+    }
+
+    /**
+     * Writes queued evictions to the spill tier. SpillStore synchronizes on itself, so holding
+     * its monitor makes each hand-off atomic with respect to put and remove.
+     */
+    private void drainSpills() {
+        if (this.pendingSpills.isEmpty()) {
+            return;
+        }
+        synchronized (this.spill) {
+            for (Map.Entry<K, V> entry : this.pendingSpills.entrySet()) {
+                if (this.pendingSpills.remove(entry.getKey(), entry.getValue())
+                        && this.spill.put(entry.getKey(), entry.getValue())) {
+                    this.spilled.increment();
+                }
+            }
+        }
+    }
+
+    private void invalidateSpilled(K key) {
+        synchronized (this.spill) {
+            this.pendingSpills.remove(key);
+            this.spill.remove(key);
+        }
+    }
+
+    /**
+     * Looks the key up in the heap tier, then in the spill tier. A spilled value is
+     * promoted back to the heap tier, which may in turn spill a colder entry.
+     */
+    public V get(K key) {
+        V value = this.heap.get(key);
+        if (value != null) {
+            this.heapHits.increment();
+            drainSpills();
+            return value;
+        }
+        drainSpills();
+        V current;
+        // Take and promote in one step under the spill monitor, so a remove() cannot slip between
+        // them and see the key in neither tier; a put() that already landed on the heap still wins
+        synchronized (this.spill) {
+            value = this.spill.take(key);
+            if (value == null) {
+                this.misses.increment();
+                return null;
+            }
+            current = this.heap.putIfAbsent(key, value);
+        }
+        this.spillHits.increment();
+        drainSpills();
+        return current != null ? current : value;
+    }
+
+    public void put(K key, V value) {
+        // Invalidate first so a stale spilled copy can never be promoted over the new value
+        invalidateSpilled(key);
+        this.heap.put(key, value);
+        drainSpills();
+    }
+
+    public void remove(K key) {
+        // Under the spill monitor, so a promotion in get() runs entirely before or after it
+        synchronized (this.spill) {
+            this.heap.remove(key);
+            this.pendingSpills.remove(key);
+            this.spill.remove(key);
+        }
+    }
+
+    public long getHeapHitCount() {
+        return this.heapHits.sum();
+    }
+
+    public long getSpillHitCount() {
+        return this.spillHits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long getSpilledCount() {
+        return this.spilled.sum();
+    }
+
+    public int getSpilledSize() {
+        return this.spill.size();
+    }
+
+    /**
+     * Replays pending heap-tier maintenance, so evictions (and therefore spills) are up to date.
+     */
+    public void cleanUp() {
+        this.heap.cleanUp();
+        drainSpills();
+    }
+
+    @Override
+    public String toString() {
+        return "TieredCache{" +
+                "heapSize=" + this.heap.estimatedSize() +
+                ", heapWeight=" + this.heap.weightedSize() +
+                ", spillSize=" + this.spill.size() +
+                ", spillLiveBytes=" + this.spill.liveBytes() +
+                ", spillCapacity=" + this.spill.capacity() +
+                ", heapHits=" + getHeapHitCount() +
+                ", spillHits=" + getSpillHitCount() +
+                ", misses=" + getMissCount() +
+                ", compactions=" + this.spill.compactions() +
+                ", dropped=" + this.spill.dropped() +
+                '}';
+    }
+
+    @Override
+    public void close() {
+        this.pendingSpills.clear();
+        this.spill.close();
+    }
+}
+
+/**
+ * Example usage of TieredCache: far more entries than the heap tier's bound stay retrievable.
+ */
+class TieredCacheExample {
+    public static void main(String[] args) {
+        BoundedCache.Builder<Key, String> heapTier = BoundedCache.<Key, String>builder()
+                .maximumWeight(100 * 1024)
+                .weigher((key, value) -> 2 * value.length())
+                .expectedEntries(64);
+        Path tempDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+
+        try (TieredCache<Key, String> cache = new TieredCache<>(heapTier, TieredCache.Codec.utf8(), 1024 * 1024, tempDirectory)) {
+            // ~2 MB of string data against a ~100 KB heap tier and a 1 MB spill file
+            for (int i = 0; i < 1000; i++) {
+                cache.put(new Key("key-" + i), largeValue(i));
+            }
+            cache.cleanUp();
+            System.out.println("After writes: " + cache);
+
+            int found = 0;
+            for (int i = 0; i < 1000; i++) {
+                if (cache.get(new Key("key-" + i)) != null) {
+                    found++;
+                }
+            }
+            System.out.println("Entries still retrievable: " + found + " of 1000");
+            System.out.println("After reads: " + cache);
+        }
+    }
+
+    // Same shape as LeakyStack.createLargeObject: ~1000 chars
+    private static String largeValue(int index) {
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'X');
+        return new String(chars) + "-" + index;
+    }
+}
@@ -0,0 +1,280 @@
+package com.creation_and_destroying_objects;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: schedules millions of deadlines with O(1) schedule and cancel,
+ * and expires them in batches as time advances, without a timer thread per entry or a sweep
+ * over every entry.
+ *
+ * Layout: five wheels of doubly linked buckets, each bucket spanning a power-of-two number of
+ * nanoseconds so the bucket index is a shift and a mask:
+ * 1. 64 buckets of ~1.07s
+ * 2. 64 buckets of ~1.14m
+ * 3. 32 buckets of ~1.22h
+ * 4. 4 buckets of ~1.63d
+ * 5. 1 overflow bucket for anything further out
+ *
+ * A timer goes into the coarsest wheel whose span covers its remaining delay. When advance()
+ * passes a bucket, its timers are either expired or, if their deadline is still ahead,
+ * cascaded into a finer wheel. Expiry is therefore precise to the finest bucket (~1s): a timer
+ * fires on the first advance() at or after its deadline rounded up to the next bucket.
+ *
+ * Not thread-safe: the owner calls every method under its own lock, as {@link BoundedCache}
+ * does with its policy lock.
+ *
+ * @param <T> the type of values attached to timers
+ */
+public final class TimingWheel<T> {
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final long[] SPANS = {
+            ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+            BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+    };
+    private static final long[] SHIFT = {
+            Long.numberOfTrailingZeros(SPANS[0]),
+            Long.numberOfTrailingZeros(SPANS[1]),
+            Long.numberOfTrailingZeros(SPANS[2]),
+            Long.numberOfTrailingZeros(SPANS[3]),
+            Long.numberOfTrailingZeros(SPANS[4]),
+    };
+
+    private final Timer<T>[][] wheels;
+    // Ticker readings are taken relative to origin so that wheel time is never negative
+    private final long origin;
+    private long time;
+    private int size;
+
+    /**
+     * A scheduled deadline. Allocated by {@link #schedule} and reused by {@link #reschedule}.
+     */
+    public static final class Timer<T> {
+        private final T value;
+        private long deadline;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(T value) {
+            this.value = value;
+        }
+
+        public T getValue() {
+            return this.value;
+        }
+
+        /**
+         * @return the deadline in ticker nanoseconds
+         */
+        public long getDeadline() {
+            return this.deadline;
+        }
+
+        public boolean isScheduled() {
+            return this.prev != null;
+        }
+    }
+
+    /**
+     * @param nowNanos the current ticker reading; deadlines are in the same time base
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long nowNanos) {
+        this.origin = nowNanos;
+        this.wheels = new Timer[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; i++) {
+            this.wheels[i] = new Timer[BUCKETS[i]];
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                Timer<T> sentinel = new Timer<>(null);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                this.wheels[i][j] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Schedules a new timer.
+     * @param value the value passed to the expiry callback
+     * @param deadlineNanos the ticker reading at which the timer expires
+     * @return the timer, for cancel() and reschedule()
+     */
+    public Timer<T> schedule(T value, long deadlineNanos) {
+        Timer<T> timer = new Timer<>(value);
+        reschedule(timer, deadlineNanos);
+        return timer;
+    }
+
+    /**
+     * Moves a timer to a new deadline, scheduling it if it is not currently scheduled.
+     */
+    public void reschedule(Timer<T> timer, long deadlineNanos) {
+        cancel(timer);
+        timer.deadline = deadlineNanos;
+        link(bucketFor(deadlineNanos - this.origin), timer);
+        this.size++;
+    }
+
+    /**
+     * Cancels a timer; a no-op if it is not scheduled.
+     */
+    public void cancel(Timer<T> timer) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+            this.size--;
+        }
+    }
+
+    /**
+     * Advances the wheel to the given time, passing the value of every timer whose deadline has
+     * been reached to the callback. Expired timers are unscheduled before the callback runs, so
+     * the callback may reschedule them. It must not cancel or reschedule other timers.
+     *
+     * @param nowNanos the current ticker reading
+     * @param onExpired receives the values of expired timers
+     * @return the number of timers expired
+     */
+    public int advance(long nowNanos, Consumer<? super T> onExpired) {
+        long previousTime = this.time;
+        long currentTime = nowNanos - this.origin;
+        if (currentTime <= previousTime) {
+            return 0;
+        }
+        this.time = currentTime;
+        int expired = 0;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previousTime >>> SHIFT[i];
+            long currentTicks = currentTime >>> SHIFT[i];
+            long delta = currentTicks - previousTicks;
+            if (delta <= 0) {
+                // Coarser wheels only turn when this one wraps
+                break;
+            }
+            expired += expire(i, previousTicks, delta, onExpired);
+        }
+        return expired;
+    }
+
+    /**
+     * @return the number of scheduled timers
+     */
+    public int size() {
+        return this.size;
+    }
+
+    private int expire(int wheel, long previousTicks, long delta, Consumer<? super T> onExpired) {
+        Timer<T>[] buckets = this.wheels[wheel];
+        int mask = buckets.length - 1;
+        // Visit every bucket passed since the last advance, at most one full turn
+        int steps = (int) Math.min(1 + delta, buckets.length);
+        int start = (int) (previousTicks & mask);
+        int expired = 0;
+        for (int i = start; i < start + steps; i++) {
+            Timer<T> sentinel = buckets[i & mask];
+            Timer<T> timer = sentinel.next;
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            while (timer != sentinel) {
+                Timer<T> next = timer.next;
+                timer.prev = null;
+                timer.next = null;
+                if (timer.deadline - this.origin - this.time > 0) {
+                    // Not yet due: cascade into the wheel that now covers it
+                    link(bucketFor(timer.deadline - this.origin), timer);
+                } else {
+                    this.size--;
+                    expired++;
+                    onExpired.accept(timer.value);
+                }
+                timer = next;
+            }
+        }
+        return expired;
+    }
+
+    private Timer<T> bucketFor(long wheelTime) {
+        // Already due: use the current bucket, which the next advance() visits first
+        wheelTime = Math.max(wheelTime, this.time);
+        long delay = wheelTime - this.time;
+        int last = this.wheels.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (delay < SPANS[i + 1]) {
+                long ticks = wheelTime >>> SHIFT[i];
+                return this.wheels[i][(int) (ticks & (this.wheels[i].length - 1))];
+            }
+        }
+        return this.wheels[last][0];
+    }
+
+    private static <T> void link(Timer<T> sentinel, Timer<T> timer) {
+        timer.prev = sentinel.prev;
+        timer.next = sentinel;
+        sentinel.prev.next = timer;
+        sentinel.prev = timer;
+    }
+
+    private static <T> void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    private static long ceilingPowerOfTwo(long x) {
+        return 1L << -Long.numberOfLeadingZeros(x - 1);
+    }
+}
+
+/**
+ * Example usage of TimingWheel and of expiry in BoundedCache, driven by a manual ticker so the
+ * output does not depend on how fast the machine is.
+ */
+class TimingWheelExample {
+    public static void main(String[] args) {
+        long[] now = {0};
+        Ticker ticker = () -> now[0];
+
+        // Example 1: a million timers, spread over an hour, expired in batches as time advances
+        TimingWheel<Integer> wheel = new TimingWheel<>(ticker.read());
+        int timers = 1_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < timers; i++) {
+            // One every 3.6 ms, so the last is due just before the hour
+            wheel.schedule(i, TimeUnit.MICROSECONDS.toNanos(i * 3600L));
+        }
+        long scheduleNanos = System.nanoTime() - start;
+        System.out.printf("Scheduled %d timers in %d ms (%d ns each)%n",
+                timers, scheduleNanos / 1_000_000, scheduleNanos / timers);
+        int[] expiredTotal = {0};
+        for (int minute = 1; minute <= 60; minute += 15) {
+            now[0] = TimeUnit.MINUTES.toNanos(minute);
+            int expired = wheel.advance(now[0], value -> expiredTotal[0]++);
+            System.out.printf("At %2d min: expired %,d, still scheduled %,d%n", minute, expired, wheel.size());
+        }
+
+        // Example 2: expire-after-write and expire-after-access in BoundedCache
+        now[0] = 0;
+        BoundedCache<Key, String> sessions = BoundedCache.<Key, String>builder()
+                .maximumWeight(10_000)
+                .expireAfterAccess(java.time.Duration.ofMinutes(30))
+                .expireAfterWrite(java.time.Duration.ofHours(8))
+                .ticker(ticker)
+                .build();
+        sessions.put(new Key("active"), "alice");
+        sessions.put(new Key("idle"), "bob");
+        for (int minute = 10; minute <= 60; minute += 10) {
+            now[0] = TimeUnit.MINUTES.toNanos(minute);
+            sessions.get(new Key("active"));
+        }
+        sessions.cleanUp();
+        System.out.println("After an hour: active=" + sessions.get(new Key("active"))
+                + ", idle=" + sessions.get(new Key("idle")));
+        now[0] = TimeUnit.HOURS.toNanos(9);
+        System.out.println("After nine hours: active=" + sessions.get(new Key("active")));
+        sessions.cleanUp();
+        System.out.println(sessions);
+    }
+}
@@ -21,7 +21,8 @@ public class TrueSingleton implements Serializable {
      * Trade-offs:
      * - Thread-safe but potentially impacts performance
      * - Every call to getInstance() acquires a lock, even after initialization
-     * - Consider using double-checked locking or holder pattern for better performance
+     * - Consider using double-checked locking ({@link Lazy}) or holder pattern ({@link HolderSingleton})
+     *   for better performance
      * 
      * @return the singleton instance
      */
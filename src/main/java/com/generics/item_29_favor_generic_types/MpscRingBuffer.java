@@ -0,0 +1,174 @@
+package com.generics.item_29_favor_generic_types;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A bounded, lock-free queue for handing elements from any number of producer threads to
+ * exactly one consumer thread.
+ *
+ * Same layout as {@link SpscRingBuffer}, except:
+ * 1. Producers claim sequences by compare-and-set on the tail, then write their slot
+ * 2. A claimed slot may be read before it is written, so each slot is published on its own
+ *    with a release store, and the consumer treats null as "claimed but not yet written"
+ * 3. Producers share a cached limit (head + capacity) and re-read head only when it is reached
+ * 4. offerAll claims a whole batch with one compare-and-set
+ *
+ * Null elements are not permitted. Nothing is allocated after construction.
+ */
+public class MpscRingBuffer<E> {
+
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final Object[] buffer;
+    private final int mask;
+    // next sequence to claim; cached holds the producers' shared limit
+    private final PaddedSequence tail = new PaddedSequence(0);
+    // next sequence to read
+    private final PaddedSequence head = new PaddedSequence(0);
+
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        this.buffer = new Object[SpscRingBuffer.roundToPowerOfTwo(capacity)];
+        this.mask = this.buffer.length - 1;
+        this.tail.setCached(this.buffer.length);
+    }
+
+    /**
+     * Any thread.
+     *
+     * @return false if the buffer is full
+     */
+    public boolean offer(E item) {
+        Objects.requireNonNull(item);
+        long t;
+        do {
+            t = this.tail.get();
+            if (t >= this.tail.getCached() && t >= refreshLimit()) {
+                return false;
+            }
+        } while (!this.tail.compareAndSet(t, t + 1));
+        SLOT.setRelease(this.buffer, (int) t & this.mask, item);
+        return true;
+    }
+
+    /**
+     * Any thread. Offers items in list order until the buffer is full; the batch occupies
+     * consecutive slots, so it is never interleaved with other producers' elements.
+     *
+     * @return the number of items offered, a prefix of the list
+     */
+    public int offerAll(List<? extends E> items) {
+        for (E item : items) {
+            Objects.requireNonNull(item);
+        }
+        long t;
+        int count;
+        do {
+            t = this.tail.get();
+            long limit = this.tail.getCached();
+            if (t + items.size() > limit) {
+                limit = refreshLimit();
+            }
+            count = (int) Math.min(limit - t, items.size());
+            if (count <= 0) {
+                return 0;
+            }
+        } while (!this.tail.compareAndSet(t, t + count));
+        for (int i = 0; i < count; i++) {
+            SLOT.setRelease(this.buffer, (int) (t + i) & this.mask, items.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * Consumer only.
+     *
+     * @return the oldest element, or null if the buffer is empty
+     */
+    public E poll() {
+        long h = this.head.getPlain();
+        int index = (int) h & this.mask;
+        Object item = SLOT.getAcquire(this.buffer, index);
+        if (item == null) {
+            if (h == this.tail.get()) {
+                return null;
+            }
+            // a producer claimed the slot and is about to write it
+            do {
+                Thread.onSpinWait();
+                item = SLOT.getAcquire(this.buffer, index);
+            } while (item == null);
+        }
+        this.buffer[index] = null;
+        this.head.setRelease(h + 1);
+        return cast(item);
+    }
+
+    /**
+     * Consumer only. Moves up to maxElements elements, oldest first, into the collection.
+     * Stops early at a slot that is claimed but not yet written, instead of waiting for it.
+     *
+     * @return the number of elements moved
+     */
+    public int drainTo(Collection<? super E> sink, int maxElements) {
+        long h = this.head.getPlain();
+        int count = 0;
+        try {
+            while (count < maxElements) {
+                int index = (int) (h + count) & this.mask;
+                Object item = SLOT.getAcquire(this.buffer, index);
+                if (item == null) {
+                    break;
+                }
+                // if the sink throws, the element stays in the buffer
+                sink.add(cast(item));
+                this.buffer[index] = null;
+                count++;
+            }
+        } finally {
+            if (count > 0) {
+                this.head.setRelease(h + count);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of claimed elements, only a snapshot while other threads are active
+     */
+    public int size() {
+        long h = this.head.get();
+        long t = this.tail.get();
+        return (int) Math.max(0, Math.min(t - h, this.buffer.length));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return this.buffer.length;
+    }
+
+    // re-reads head and returns the first sequence that cannot be claimed yet;
+    // racing producers may store an older limit, which is only ever too low, never too high.
+    // The release store carries the head read, and so the consumer's cleared slots, to
+    // every producer that later trusts this limit
+    private long refreshLimit() {
+        long limit = this.head.get() + this.buffer.length;
+        this.tail.setCached(limit);
+        return limit;
+    }
+
+    @SuppressWarnings("unchecked")
+    // only elements of type "E" are offered
+    private E cast(Object item) {
+        return (E) item;
+    }
+}
@@ -0,0 +1,71 @@
+package com.generics.item_29_favor_generic_types;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// the superclass and subclass padding keep "value" and "cached" on a cache line of their own:
+// the JVM lays out superclass fields first, so the padding cannot be reordered around them
+abstract class LeftPadding {
+    long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SequenceFields extends LeftPadding {
+    volatile long value;
+    // owned by the side that writes "value": its last view of the opposite counter
+    long cached;
+}
+
+/**
+ * A sequence counter padded against false sharing, for the ring buffers in this package.
+ * The producer's and the consumer's counters are updated millions of times per second by
+ * different threads; on a shared cache line every update would invalidate the other core's copy.
+ */
+final class PaddedSequence extends SequenceFields {
+    private static final VarHandle VALUE;
+    private static final VarHandle CACHED;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VALUE = lookup.findVarHandle(SequenceFields.class, "value", long.class);
+            CACHED = lookup.findVarHandle(SequenceFields.class, "cached", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    long p11, p12, p13, p14, p15, p16, p17;
+
+    PaddedSequence(long initial) {
+        VALUE.setRelease(this, initial);
+    }
+
+    long get() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    // only for the thread that owns the counter
+    long getPlain() {
+        return (long) VALUE.get(this);
+    }
+
+    // publishes every write made before it, without the full fence of a volatile write
+    void setRelease(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    boolean compareAndSet(long expected, long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+
+    // for a cache shared between threads (the MPSC producer limit): acquire/release, because
+    // a producer trusting another producer's limit needs the consumer's slot clearing that the
+    // limit was computed from to be visible too. The single-owner SPSC caches use the plain field
+    long getCached() {
+        return (long) CACHED.getAcquire(this);
+    }
+
+    void setCached(long newValue) {
+        CACHED.setRelease(this, newValue);
+    }
+}
@@ -0,0 +1,209 @@
+package com.generics.item_29_favor_generic_types;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Hand-off throughput of {@link SpscRingBuffer} and {@link MpscRingBuffer}, one element at a
+ * time and in batches of {@value #BATCH}, against {@link ArrayBlockingQueue}.
+ *
+ * Producers send {@value #MESSAGES} messages in total to one consumer, spinning and then
+ * yielding while the buffer is full or empty. Every message is the same preallocated object, so
+ * only the hand-off itself is measured. Reports millions of messages per second over two runs,
+ * the first one warming up.
+ * With fewer CPUs than threads the figures measure scheduling as much as the queues; the CPU
+ * count is printed for context.
+ *
+ * Run with: java -cp target/classes com.generics.item_29_favor_generic_types.RingBufferBenchmark
+ */
+public class RingBufferBenchmark {
+    private static final int MESSAGES = 10_000_000;
+    private static final int CAPACITY = 4096;
+    private static final int BATCH = 256;
+    private static final int SPINS_BEFORE_YIELD = 100;
+    private static final Integer MESSAGE = 42;
+
+    private static volatile long sink;
+
+    /**
+     * The operations under test, so all queues run the same loops.
+     */
+    private interface QueueUnderTest {
+        boolean offer(Integer message);
+
+        int offerAll(List<Integer> messages);
+
+        Integer poll();
+
+        int drainTo(Collection<Integer> sink, int maxElements);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("CPUs: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-24s %10s %8s %12s%n", "queue", "producers", "batch", "Mmsgs/s");
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            for (int batch : new int[]{1, BATCH}) {
+                run("ArrayBlockingQueue", 1, batch, report, blockingQueue());
+                run("SpscRingBuffer", 1, batch, report, spsc());
+                for (int producers = 1; producers <= 2; producers++) {
+                    run("MpscRingBuffer", producers, batch, report, mpsc());
+                }
+            }
+        }
+    }
+
+    private static QueueUnderTest blockingQueue() {
+        ArrayBlockingQueue<Integer> queue = new ArrayBlockingQueue<>(CAPACITY);
+        return new QueueUnderTest() {
+            @Override
+            public boolean offer(Integer message) {
+                return queue.offer(message);
+            }
+
+            @Override
+            public int offerAll(List<Integer> messages) {
+                int count = 0;
+                while (count < messages.size() && queue.offer(messages.get(count))) {
+                    count++;
+                }
+                return count;
+            }
+
+            @Override
+            public Integer poll() {
+                return queue.poll();
+            }
+
+            @Override
+            public int drainTo(Collection<Integer> sink, int maxElements) {
+                return queue.drainTo(sink, maxElements);
+            }
+        };
+    }
+
+    private static QueueUnderTest spsc() {
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(CAPACITY);
+        return new QueueUnderTest() {
+            @Override
+            public boolean offer(Integer message) {
+                return buffer.offer(message);
+            }
+
+            @Override
+            public int offerAll(List<Integer> messages) {
+                return buffer.offerAll(messages);
+            }
+
+            @Override
+            public Integer poll() {
+                return buffer.poll();
+            }
+
+            @Override
+            public int drainTo(Collection<Integer> sink, int maxElements) {
+                return buffer.drainTo(sink, maxElements);
+            }
+        };
+    }
+
+    private static QueueUnderTest mpsc() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(CAPACITY);
+        return new QueueUnderTest() {
+            @Override
+            public boolean offer(Integer message) {
+                return buffer.offer(message);
+            }
+
+            @Override
+            public int offerAll(List<Integer> messages) {
+                return buffer.offerAll(messages);
+            }
+
+            @Override
+            public Integer poll() {
+                return buffer.poll();
+            }
+
+            @Override
+            public int drainTo(Collection<Integer> sink, int maxElements) {
+                return buffer.drainTo(sink, maxElements);
+            }
+        };
+    }
+
+    private static void run(String name, int producers, int batch, boolean report, QueueUnderTest queue)
+            throws InterruptedException {
+        int perProducer = MESSAGES / producers;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                List<Integer> messages = Collections.nCopies(batch, MESSAGE);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                int sent = 0;
+                int misses = 0;
+                while (sent < perProducer) {
+                    int offered;
+                    if (batch == 1) {
+                        offered = queue.offer(MESSAGE) ? 1 : 0;
+                    } else {
+                        List<Integer> next = perProducer - sent >= batch ? messages : messages.subList(0, perProducer - sent);
+                        offered = queue.offerAll(next);
+                    }
+                    misses = offered == 0 ? idle(misses) : 0;
+                    sent += offered;
+                }
+            });
+            threads[p].start();
+        }
+
+        List<Integer> received = new ArrayList<>(batch);
+        long total = (long) perProducer * producers;
+        long count = 0;
+        long checksum = 0;
+        int misses = 0;
+        long begin = System.nanoTime();
+        start.countDown();
+        while (count < total) {
+            int polled;
+            if (batch == 1) {
+                Integer message = queue.poll();
+                polled = message == null ? 0 : 1;
+                checksum += polled;
+            } else {
+                polled = queue.drainTo(received, batch);
+                received.clear();
+            }
+            misses = polled == 0 ? idle(misses) : 0;
+            count += polled;
+        }
+        long elapsed = System.nanoTime() - begin;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        sink = checksum;
+        if (report) {
+            System.out.printf("%-24s %10d %8d %12.1f%n", name, producers, batch, total / (elapsed / 1e9) / 1_000_000);
+        }
+    }
+
+    // spin briefly while the other side catches up, then give up the CPU: with fewer CPUs
+    // than threads, spinning alone would burn whole time slices waiting for a descheduled thread
+    private static int idle(int misses) {
+        if (misses < SPINS_BEFORE_YIELD) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+        return misses + 1;
+    }
+}
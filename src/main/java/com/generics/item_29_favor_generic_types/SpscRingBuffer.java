@@ -0,0 +1,153 @@
+package com.generics.item_29_favor_generic_types;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A bounded, lock-free queue for handing elements from exactly one producer thread to exactly
+ * one consumer thread. Unlike {@link Stack}, it is safe to share between those two threads.
+ *
+ * 1. The capacity is rounded up to a power of two, so a sequence maps to a slot with a mask
+ * 2. Head and tail only ever grow; each is written by one thread only and published with a
+ *    release store, so no CAS and no lock is needed
+ * 3. Each side caches its last view of the other side's counter and re-reads it only when the
+ *    buffer looks full (producer) or empty (consumer)
+ * 4. offerAll/drainTo move a batch with a single publication
+ *
+ * Null elements are not permitted. Nothing is allocated after construction.
+ */
+public class SpscRingBuffer<E> {
+
+    private final Object[] buffer;
+    private final int mask;
+    // next sequence to write; cached holds the producer's view of head
+    private final PaddedSequence tail = new PaddedSequence(0);
+    // next sequence to read; cached holds the consumer's view of tail
+    private final PaddedSequence head = new PaddedSequence(0);
+
+    public SpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        // generic arrays cannot be created, see Stack
+        this.buffer = new Object[roundToPowerOfTwo(capacity)];
+        this.mask = this.buffer.length - 1;
+    }
+
+    /**
+     * Producer only.
+     *
+     * @return false if the buffer is full
+     */
+    public boolean offer(E item) {
+        Objects.requireNonNull(item);
+        long t = this.tail.getPlain();
+        if (t - this.tail.cached >= this.buffer.length) {
+            this.tail.cached = this.head.get();
+            if (t - this.tail.cached >= this.buffer.length) {
+                return false;
+            }
+        }
+        this.buffer[(int) t & this.mask] = item;
+        this.tail.setRelease(t + 1);
+        return true;
+    }
+
+    /**
+     * Producer only. Offers items in list order until the buffer is full.
+     *
+     * @return the number of items offered, a prefix of the list
+     */
+    public int offerAll(List<? extends E> items) {
+        for (E item : items) {
+            Objects.requireNonNull(item);
+        }
+        long t = this.tail.getPlain();
+        long free = this.buffer.length - (t - this.tail.cached);
+        if (free < items.size()) {
+            this.tail.cached = this.head.get();
+            free = this.buffer.length - (t - this.tail.cached);
+        }
+        int count = (int) Math.min(free, items.size());
+        for (int i = 0; i < count; i++) {
+            this.buffer[(int) (t + i) & this.mask] = items.get(i);
+        }
+        if (count > 0) {
+            this.tail.setRelease(t + count);
+        }
+        return count;
+    }
+
+    /**
+     * Consumer only.
+     *
+     * @return the oldest element, or null if the buffer is empty
+     */
+    public E poll() {
+        long h = this.head.getPlain();
+        if (h >= this.head.cached) {
+            this.head.cached = this.tail.get();
+            if (h >= this.head.cached) {
+                return null;
+            }
+        }
+        int index = (int) h & this.mask;
+        @SuppressWarnings("unchecked")
+        // only elements of type "E" are offered
+        E item = (E) this.buffer[index];
+        this.buffer[index] = null;
+        this.head.setRelease(h + 1);
+        return item;
+    }
+
+    /**
+     * Consumer only. Moves up to maxElements elements, oldest first, into the collection.
+     *
+     * @return the number of elements moved
+     */
+    public int drainTo(Collection<? super E> sink, int maxElements) {
+        long h = this.head.getPlain();
+        this.head.cached = this.tail.get();
+        int available = (int) Math.min(this.head.cached - h, maxElements);
+        int count = 0;
+        try {
+            while (count < available) {
+                int index = (int) (h + count) & this.mask;
+                @SuppressWarnings("unchecked")
+                E item = (E) this.buffer[index];
+                // if the sink throws, the element stays in the buffer
+                sink.add(item);
+                this.buffer[index] = null;
+                count++;
+            }
+        } finally {
+            if (count > 0) {
+                this.head.setRelease(h + count);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of elements, only a snapshot while the other thread is active
+     */
+    public int size() {
+        // read head first: tail can only have moved further since
+        long h = this.head.get();
+        long t = this.tail.get();
+        return (int) Math.max(0, Math.min(t - h, this.buffer.length));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return this.buffer.length;
+    }
+
+    static int roundToPowerOfTwo(int capacity) {
+        return capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+}
@@ -1,15 +1,25 @@
 package com.generics.item_29_favor_generic_types;
 
-public class Stack<E> {
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class Stack<E> implements Iterable<E> {
 
     private final Object[] stack;
     private int size;
+    // changed by push and pop, so in-place traversals can detect them
+    private int modCount;
 
     public Stack(int size) {
         // cannot use generic type to
         // instantiate "stack"
         this.stack = new Object[size];
-        this.size = -1;
+        this.size = 0;
     }
 
     public boolean push(E item) {
@@ -20,21 +30,118 @@ public class Stack<E> {
 
         stack[size] = item;
         size++;
+        modCount++;
 
         return true;
     }
 
     public E pop() {
-        if (size == -1) {
+        if (size == 0) {
             return null;
         }
 
+        size--;
         @SuppressWarnings("unchecked")
         // we know only elements of type "E" are added
         // so this cast is okay
         E item = (E) stack[size];
 
-        size--;
+        // eliminate the obsolete reference
+        stack[size] = null;
+        modCount++;
         return item;
     }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // iterates bottom to top (push order) over a snapshot,
+    // so the stack may be pushed and popped meanwhile
+    @Override
+    public Iterator<E> iterator() {
+        @SuppressWarnings("unchecked")
+        // only elements of type "E" are added
+        E[] snapshot = (E[]) Arrays.copyOf(stack, size);
+        return Arrays.asList(snapshot).iterator();
+    }
+
+    // SIZED and SUBSIZED: splits the current elements of the array in halves,
+    // so a parallel stream needs no intermediate copy. Reads the array in place,
+    // so a push or pop during the traversal throws ConcurrentModificationException
+    @Override
+    public Spliterator<E> spliterator() {
+        return new StackSpliterator(0, size, modCount);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    // checks modCount before every element, so it never hands out a popped slot
+    private final class StackSpliterator implements Spliterator<E> {
+        private int index;
+        private final int fence;
+        private final int expectedModCount;
+
+        StackSpliterator(int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (index >= fence) {
+                return false;
+            }
+            checkForComodification();
+            action.accept(element(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            for (; index < fence; index++) {
+                checkForComodification();
+                action.accept(element(index));
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            Spliterator<E> prefix = new StackSpliterator(index, mid, expectedModCount);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @SuppressWarnings("unchecked")
+        private E element(int i) {
+            return (E) stack[i];
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
 }